@@ -4,6 +4,7 @@ plugins {
     id("org.javamodularity.moduleplugin") version "1.8.15"
     id("org.openjfx.javafxplugin") version "0.0.13"
     id("org.beryx.jlink") version "2.25.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.metrostate.ics"
@@ -48,6 +49,42 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// stress tests poll the file system for a long time, so they are left out of the regular test run
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("stress")
+    }
+}
+
+tasks.register<Test>("stressTest") {
+    group = "verification"
+    description = "Runs the slow stress tests left out of the test task, such as the 20,000 file listener burst."
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("stress")
+    }
+}
+
+// benchmarks live in src/jmh/java; run with ./gradlew jmh
+// results are written as JSON so runs on different commits can be compared
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// headless ingest load test, for example ./gradlew loadTest --args="--rate 200 --duration 60 --burst-every 10"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Drops synthetic order files into a watched directory and reports ingest latency and throughput."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.metrostate.ics.ordertrackingapp.LoadTest")
+}
+
 jlink {
     imageZip.set(layout.buildDirectory.file("/distributions/app-${javafx.platform.classifier}.zip"))
     options.set(listOf("--strip-debug", "--compress", "2", "--no-header-files", "--no-man-pages"))
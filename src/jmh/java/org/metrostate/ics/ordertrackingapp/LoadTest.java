@@ -0,0 +1,267 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless load test of the import path: the IngestEngine's OrderListener, ingest pipeline
+ * (ParserRegistry) and OrderDriver, without the JavaFX stage.
+ *
+ * A writer thread drops synthetic FoodHub JSON and GrubStop XML files into the import directory at a
+ * steady rate, with optional periodic bursts. Some files can be written in two parts with a pause
+ * in between, and some written under a temporary name and renamed into place, the way feeds
+ * that copy files in behave. Each file's order date is unique, so every ingested order is
+ * matched to the moment its file appeared.
+ *
+ * Reports how many files were written and ingested, sustained throughput and drop-to-ingest
+ * latency percentiles. Run with ./gradlew loadTest --args="--rate 200 --duration 60", options:
+ * <pre>
+ *   --dir PATH              import directory to use (default: a new temp directory, deleted afterwards)
+ *   --rate N                files per second between bursts (default 100)
+ *   --duration SECONDS      how long to write files (default 30)
+ *   --burst-every SECONDS   seconds between bursts, 0 for none (default 0)
+ *   --burst-size N          files written back to back in each burst (default 500)
+ *   --items N               food items per order (default 3)
+ *   --xml FRACTION          share of GrubStop XML files (default 0.3)
+ *   --partial FRACTION      share of files written in two parts (default 0.1)
+ *   --partial-pause-ms N    pause between the two parts (default 5)
+ *   --rename FRACTION       share of files written under a temp name and renamed (default 0.1)
+ *   --json PATH             also write the results as JSON
+ * </pre>
+ */
+public final class LoadTest {
+    private static final long FIRST_ORDER_DATE = 1758027600000L;
+    private static final long DRAIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private File directory;
+    private boolean temporaryDirectory = false;
+    private double rate = 100;
+    private double durationSeconds = 30;
+    private double burstEverySeconds = 0;
+    private int burstSize = 500;
+    private int items = 3;
+    private double xmlShare = 0.3;
+    private double partialShare = 0.1;
+    private long partialPauseMillis = 5;
+    private double renameShare = 0.1;
+    private File jsonOut;
+
+    // order date -> nanoTime the file appeared under its order file name
+    private final Map<Long, Long> droppedAt = new ConcurrentHashMap<>();
+    private long[] latencies = new long[1024];
+    private int latencyCount = 0;
+    private final AtomicInteger ingested = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private volatile long lastIngestNanos;
+
+    private LoadTest() { }
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest();
+        test.parseArguments(args);
+        test.run();
+    }
+
+    private void parseArguments(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--dir" -> directory = new File(value);
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--duration" -> durationSeconds = Double.parseDouble(value);
+                case "--burst-every" -> burstEverySeconds = Double.parseDouble(value);
+                case "--burst-size" -> burstSize = Integer.parseInt(value);
+                case "--items" -> items = Integer.parseInt(value);
+                case "--xml" -> xmlShare = Double.parseDouble(value);
+                case "--partial" -> partialShare = Double.parseDouble(value);
+                case "--partial-pause-ms" -> partialPauseMillis = Long.parseLong(value);
+                case "--rename" -> renameShare = Double.parseDouble(value);
+                case "--json" -> jsonOut = new File(value);
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (directory == null) {
+            directory = Files.createTempDirectory("order-load-test").toFile();
+            temporaryDirectory = true;
+        } else if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+    }
+
+    private void run() throws Exception {
+        OrderDriver driver = new OrderDriver();
+        IngestEngine engine = new IngestEngine(directory.getPath(), driver, new OrderIdAllocator(), null, null);
+        engine.addSubscriber((orders, failedFiles, repeated) -> {
+            recordIngested(orders);
+            failed.addAndGet(failedFiles.size());
+            duplicates.addAndGet(repeated.size());
+        });
+        engine.start();
+        // let the watch service register before the first file is written
+        Thread.sleep(200);
+
+        System.out.printf(Locale.ROOT, "Writing to %s for %.0f s at %.0f files/s%s%n", directory, durationSeconds, rate,
+                burstEverySeconds > 0 ? ", bursts of " + burstSize + " every " + burstEverySeconds + " s" : "");
+        long started = System.nanoTime();
+        int written = writeFeed(started);
+        long writingDone = System.nanoTime();
+
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (ingested.get() + failed.get() + duplicates.get() < written && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        engine.stop();
+
+        report(written, started, writingDone, driver.getOrderCount());
+        if (temporaryDirectory) {
+            OrderGenerator.deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Writes files at the configured rate until the duration is up.
+     *
+     * @return The number of files written
+     */
+    private int writeFeed(long started) throws IOException {
+        OrderGenerator generator = new OrderGenerator(42);
+        Random random = new Random(7);
+        long durationNanos = (long) (durationSeconds * 1e9);
+        long intervalNanos = (long) (1e9 / rate);
+        long burstNanos = (long) (burstEverySeconds * 1e9);
+        long nextBurst = burstNanos > 0 ? started + burstNanos : Long.MAX_VALUE;
+        int written = 0;
+        long nextFile = started;
+
+        while (System.nanoTime() - started < durationNanos) {
+            long now = System.nanoTime();
+            if (now >= nextBurst) {
+                for (int i = 0; i < burstSize; i++) {
+                    writeOrderFile(generator, random, written++);
+                }
+                nextBurst += burstNanos;
+                // the steady rate resumes after the burst instead of catching up on it
+                nextFile = Math.max(nextFile, System.nanoTime());
+                continue;
+            }
+            if (now < nextFile) {
+                LockSupport.parkNanos(Math.min(nextFile, nextBurst) - now);
+                continue;
+            }
+            writeOrderFile(generator, random, written++);
+            nextFile += intervalNanos;
+        }
+        return written;
+    }
+
+    /**
+     * Writes one order file, possibly in two parts or under a temporary name.
+     */
+    private void writeOrderFile(OrderGenerator generator, Random random, int sequence) throws IOException {
+        long date = FIRST_ORDER_DATE + sequence;
+        boolean xml = random.nextDouble() < xmlShare;
+        String name = String.format("load_%07d%s", sequence, xml ? ".xml" : ".json");
+        byte[] contents = (xml ? generator.grubStopXML(date, items) : generator.foodHubJSON(date, items))
+                .getBytes(StandardCharsets.UTF_8);
+        File file = new File(directory, name);
+
+        if (random.nextDouble() < renameShare) {
+            File temp = new File(directory, name + ".part");
+            Files.write(temp.toPath(), contents);
+            droppedAt.put(date, System.nanoTime());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } else if (random.nextDouble() < partialShare) {
+            droppedAt.put(date, System.nanoTime());
+            try (OutputStream out = new FileOutputStream(file)) {
+                int half = contents.length / 2;
+                out.write(contents, 0, half);
+                out.flush();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(partialPauseMillis));
+                out.write(contents, half, contents.length - half);
+            }
+        } else {
+            droppedAt.put(date, System.nanoTime());
+            Files.write(file.toPath(), contents);
+        }
+    }
+
+    /**
+     * Records the drop-to-ingest latency of each order, called on the pipeline's thread.
+     */
+    private void recordIngested(List<Order> orders) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            for (Order order : orders) {
+                Long dropped = droppedAt.remove(order.getDate());
+                if (dropped == null) {
+                    continue;
+                }
+                if (latencyCount == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, latencyCount * 2);
+                }
+                latencies[latencyCount++] = now - dropped;
+            }
+        }
+        ingested.addAndGet(orders.size());
+        lastIngestNanos = now;
+    }
+
+    private synchronized void report(int written, long started, long writingDone, int inDriver) throws IOException {
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        double writeSeconds = (writingDone - started) / 1e9;
+        double ingestSeconds = Math.max(lastIngestNanos - started, 1) / 1e9;
+        double throughput = ingested.get() / ingestSeconds;
+
+        System.out.printf(Locale.ROOT, "Files written:   %d (%.0f/s)%n", written, written / writeSeconds);
+        System.out.printf(Locale.ROOT, "Orders ingested: %d (%d in the driver), %d failed to parse, %d duplicates, %d missing%n",
+                ingested.get(), inDriver, failed.get(), duplicates.get(), droppedAt.size());
+        System.out.printf(Locale.ROOT, "Throughput:      %.0f orders/s sustained%n", throughput);
+        System.out.printf(Locale.ROOT, "Latency (ms):    p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                percentile(sorted, 100));
+        for (ParserRegistry.FeedMetrics metrics : ParserRegistry.installed().getMetrics()) {
+            System.out.println("Feed " + metrics);
+        }
+
+        if (jsonOut != null) {
+            String json = String.format(Locale.ROOT, "{\"written\": %d, \"ingested\": %d, \"failed\": %d, \"duplicates\": %d,"
+                    + " \"missing\": %d, \"ordersPerSecond\": %.1f, \"latencyMillis\": {\"p50\": %.3f, \"p90\": %.3f,"
+                    + " \"p99\": %.3f, \"p99.9\": %.3f, \"max\": %.3f}}%n",
+                    written, ingested.get(), failed.get(), duplicates.get(), droppedAt.size(), throughput,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                    percentile(sorted, 100));
+            Files.writeString(jsonOut.toPath(), json, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond latencies, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)] / 1e6;
+    }
+}
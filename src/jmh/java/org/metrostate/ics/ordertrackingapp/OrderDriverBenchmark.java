@@ -0,0 +1,105 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order store operations and the filtering behind the status and type combo boxes,
+ * for a small and a large board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderDriverBenchmark {
+    @Param({"1000", "100000"})
+    public int orderCount;
+
+    private OrderDriver driver;
+    private List<Order> waitingOrders;
+    private int cursor = 0;
+
+    @Setup
+    public void setUp() {
+        driver = new OrderDriver();
+        driver.addOrders(new OrderGenerator(42).orders(orderCount, 3));
+        waitingOrders = new ArrayList<>(driver.getOrders(Status.waiting, null));
+    }
+
+    /**
+     * A new, empty driver and a fresh set of orders for every call of addOrders.
+     * Adding a whole board takes long enough that the per-call setup doesn't skew the result.
+     */
+    @State(Scope.Thread)
+    public static class EmptyDriver {
+        private OrderDriver driver;
+        private List<Order> orders;
+
+        @Setup(Level.Invocation)
+        public void setUp(OrderDriverBenchmark board) {
+            driver = new OrderDriver();
+            orders = new OrderGenerator(7).orders(board.orderCount, 3);
+        }
+    }
+
+    @Benchmark
+    public OrderDriver addOrders(EmptyDriver empty) {
+        empty.driver.addOrders(empty.orders);
+        return empty.driver;
+    }
+
+    @Benchmark
+    public Order getOrderById() {
+        cursor = cursor % orderCount + 1;
+        return driver.getOrder(cursor);
+    }
+
+    /**
+     * Cancels a waiting order and puts it back, so the board is unchanged afterwards.
+     */
+    @Benchmark
+    public boolean cancelAndUncancel() {
+        cursor = (cursor + 1) % waitingOrders.size();
+        Order order = waitingOrders.get(cursor);
+        return driver.cancelOrderGUI(order) && driver.uncancelOrder(order);
+    }
+
+    @Benchmark
+    public List<Order> filterByStatusAndType() {
+        return driver.getOrders(Status.waiting, Type.pickup);
+    }
+
+    @Benchmark
+    public List<Order> filterByType() {
+        return driver.getOrders(null, Type.delivery);
+    }
+
+    @Benchmark
+    public List<Order> filterAll() {
+        return driver.getOrders(null, null);
+    }
+
+    /**
+     * The scan over every order that filtering used before the status and type indexes, for comparison.
+     */
+    @Benchmark
+    public List<Order> filterByStatusAndTypeLinearScan() {
+        List<Order> result = new ArrayList<>();
+        for (Order order : driver.getOrders()) {
+            if (order.getStatus() == Status.waiting && order.getType() == Type.pickup) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+}
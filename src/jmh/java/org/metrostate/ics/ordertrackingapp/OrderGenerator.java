@@ -0,0 +1,135 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic orders and FoodHub/GrubStop order files for benchmarks.
+ * The same seed always gives the same orders, so runs on different commits measure the same input.
+ */
+final class OrderGenerator {
+    private static final String[] FOODS = {
+        "Burger", "Fries", "Milkshake", "Grilled Cheese", "Chicken Sandwich", "Onion Rings",
+        "Caesar Salad", "Hot Dog", "Soda", "Iced Tea", "Veggie Wrap", "Apple Pie"
+    };
+    private static final long FIRST_ORDER_DATE = 1758027600000L;
+
+    private final Random random;
+
+    OrderGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param orderId   The order's ID
+     * @param itemCount How many food items the order has
+     * @return          A new order with random items, type and status
+     */
+    Order order(int orderId, int itemCount) {
+        Order order = new Order(orderId, randomOf(Type.values()), FIRST_ORDER_DATE + orderId * 60_000L, items(itemCount));
+        order.setStatus(randomOf(Status.values()));
+        order.setCompany(random.nextBoolean() ? FoodHubJSONAdapter.COMPANY : GrubStopXMLAdapter.COMPANY);
+        return order;
+    }
+
+    /**
+     * @param orderCount    How many orders to build
+     * @param itemCount     How many food items each order has
+     * @return              Orders with IDs 1 to orderCount
+     */
+    List<Order> orders(int orderCount, int itemCount) {
+        List<Order> orders = new ArrayList<>(orderCount);
+        for (int i = 1; i <= orderCount; i++) {
+            orders.add(order(i, itemCount));
+        }
+        return orders;
+    }
+
+    /**
+     * @param date      The order date in milliseconds
+     * @param itemCount How many food items the order has
+     * @return          A FoodHub order file's contents
+     */
+    String foodHubJSON(long date, int itemCount) {
+        StringBuilder json = new StringBuilder(64 + itemCount * 64);
+        json.append("{\n\t\"order\": {\n\t\t\"type\": \"").append(randomOf(Type.values()).name())
+            .append("\",\n\t\t\"order_date\": ").append(date).append(",\n\t\t\"items\": [");
+        for (int i = 0; i < itemCount; i++) {
+            json.append(i == 0 ? "\n" : ",\n")
+                .append("\t\t\t{\"name\": \"").append(randomOf(FOODS))
+                .append("\", \"quantity\": ").append(1 + random.nextInt(4))
+                .append(", \"price\": ").append(price()).append('}');
+        }
+        return json.append("\n\t\t]\n\t}\n}").toString();
+    }
+
+    /**
+     * @param date      The order date in milliseconds
+     * @param itemCount How many food items the order has
+     * @return          A GrubStop order file's contents
+     */
+    String grubStopXML(long date, int itemCount) {
+        StringBuilder xml = new StringBuilder(64 + itemCount * 96);
+        xml.append("<Orders>\n    <Order id=\"").append(date).append("\">\n        <OrderType>")
+           .append(randomOf(Type.values()).name()).append("</OrderType>\n");
+        for (int i = 0; i < itemCount; i++) {
+            xml.append("        <Item type=\"").append(randomOf(FOODS)).append("\">\n")
+               .append("            <Price>").append(price()).append("</Price>\n")
+               .append("            <Quantity>").append(1 + random.nextInt(4)).append("</Quantity>\n")
+               .append("        </Item>\n");
+        }
+        return xml.append("    </Order>\n</Orders>").toString();
+    }
+
+    /**
+     * Writes a FoodHub order file.
+     */
+    File writeFoodHubJSON(File directory, String name, long date, int itemCount) throws IOException {
+        File file = new File(directory, name);
+        Files.writeString(file.toPath(), foodHubJSON(date, itemCount), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Writes a GrubStop order file.
+     */
+    File writeGrubStopXML(File directory, String name, long date, int itemCount) throws IOException {
+        File file = new File(directory, name);
+        Files.writeString(file.toPath(), grubStopXML(date, itemCount), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private List<FoodItem> items(int itemCount) {
+        List<FoodItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new FoodItem(randomOf(FOODS), 1 + random.nextInt(4), price()));
+        }
+        return items;
+    }
+
+    private double price() {
+        return (99 + random.nextInt(1500)) / 100.0;
+    }
+
+    private <T> T randomOf(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Deletes a directory and everything in it, for benchmark tear-down.
+     */
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
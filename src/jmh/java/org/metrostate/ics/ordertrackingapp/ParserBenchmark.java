@@ -0,0 +1,70 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read one order file: FoodHub JSON, GrubStop XML, a saved JSON order, and a
+ * feed file routed through the ParserRegistry (content sniff included).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    @Param({"1", "10", "100"})
+    public int itemCount;
+
+    private File directory;
+    private File jsonFile;
+    private File xmlFile;
+    private File savedFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("parser-benchmark").toFile();
+        OrderGenerator generator = new OrderGenerator(42);
+        jsonFile = generator.writeFoodHubJSON(directory, "order.json", 1758027600000L, itemCount);
+        xmlFile = generator.writeGrubStopXML(directory, "order.xml", 1758027600000L, itemCount);
+        Order saved = generator.order(1, itemCount);
+        OrderDriver.orderExportJSON(saved, directory.getPath());
+        savedFile = new File(directory, "Saved_Order1.json");
+    }
+
+    @TearDown
+    public void tearDown() {
+        OrderGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Order parseJSONOrder() throws IOException {
+        return Parser.parseJSONOrder(jsonFile);
+    }
+
+    @Benchmark
+    public Order parseXMLOrder() throws IOException {
+        return Parser.parseXMLOrder(xmlFile);
+    }
+
+    @Benchmark
+    public Order parseSavedJSONOrder() throws IOException {
+        return Parser.parseSavedJSONOrder(savedFile);
+    }
+
+    @Benchmark
+    public List<Order> registryParseJSON() throws IOException {
+        return ParserRegistry.installed().parse(jsonFile);
+    }
+}
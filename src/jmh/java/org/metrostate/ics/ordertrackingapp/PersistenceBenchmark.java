@@ -0,0 +1,111 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of saving orders: one file per order in each OrderCodec format (with and without fsync),
+ * a status change appended to the OrderJournal, and writing and reading a full snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBenchmark {
+    private static final int SNAPSHOT_ORDERS = 10_000;
+
+    @Param({"3", "30"})
+    public int itemCount;
+
+    private File directory;
+    private String jsonDirectory;
+    private String binaryDirectory;
+    private Order order;
+    private OrderJournal journal;
+    private File snapshotFile;
+    private List<Order> snapshotOrders;
+    private List<Status> snapshotStatuses;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("persistence-benchmark").toFile();
+        OrderGenerator generator = new OrderGenerator(42);
+        order = generator.order(1, itemCount);
+
+        File json = new File(directory, "json");
+        json.mkdirs();
+        jsonDirectory = json.getPath();
+        File binary = new File(directory, "binary");
+        binary.mkdirs();
+        Files.writeString(new File(binary, OrderCodec.SETTINGS_FILE).toPath(), "codec=binary\n");
+        binaryDirectory = binary.getPath();
+
+        journal = new OrderJournal(new File(directory, "journal"));
+        journal.write(order);
+
+        snapshotFile = new File(directory, OrderSnapshot.SNAPSHOT_FILE);
+        snapshotOrders = generator.orders(SNAPSHOT_ORDERS, itemCount);
+        snapshotStatuses = new ArrayList<>(SNAPSHOT_ORDERS);
+        for (Order saved : snapshotOrders) {
+            snapshotStatuses.add(saved.getStatus());
+        }
+        OrderSnapshot.write(snapshotFile, snapshotOrders, snapshotStatuses);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        OrderGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void exportJSON() {
+        OrderDriver.orderExportJSON(order, jsonDirectory);
+    }
+
+    @Benchmark
+    public void exportJSONSynced() {
+        OrderDriver.orderExportJSON(order, jsonDirectory, true);
+    }
+
+    @Benchmark
+    public void exportBinary() {
+        OrderDriver.orderExportJSON(order, binaryDirectory);
+    }
+
+    /**
+     * One status change record, flushed as the write-behind persistence does after each batch.
+     * Includes the occasional compaction once the journal reaches its threshold.
+     */
+    @Benchmark
+    public void journalStatusChange() throws IOException {
+        order.setStatus(order.getStatus() == Status.waiting ? Status.inProgress : Status.waiting);
+        journal.write(order);
+        journal.endBatch();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void writeSnapshot() throws IOException {
+        OrderSnapshot.write(snapshotFile, snapshotOrders, snapshotStatuses);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Order> readSnapshot() throws IOException {
+        return OrderSnapshot.read(snapshotFile);
+    }
+}
@@ -6,6 +6,11 @@ module org.metrostate.ics.ordertrackingapp {
     requires javafx.graphics;
 
 
+    uses org.metrostate.ics.ordertrackingapp.OrderFeedAdapter;
+    provides org.metrostate.ics.ordertrackingapp.OrderFeedAdapter with
+            org.metrostate.ics.ordertrackingapp.FoodHubJSONAdapter,
+            org.metrostate.ics.ordertrackingapp.GrubStopXMLAdapter;
+
     opens org.metrostate.ics.ordertrackingapp to javafx.fxml;
     exports org.metrostate.ics.ordertrackingapp;
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves orders in a compact binary format (Saved_Order(id).order), usually a fraction of the JSON size.
+ *
+ * Layout: magic "OB", version byte, then varints: orderId, date (zig-zag), totalPrice,
+ * a type byte and a status byte (ordinal, 0xFF for null), the string table (count, then each
+ * string as byte length + UTF-8), the company as a string reference, and the food items
+ * (count, then name reference, quantity (zig-zag) and price per item).
+ * Prices are fixed-point in ten-thousandths (zig-zag varint). String references are the
+ * table index plus one, 0 meaning null, so a name used by several items is stored once.
+ */
+final class BinaryOrderCodec implements OrderCodec {
+    private static final byte MAGIC_0 = 'O';
+    private static final byte MAGIC_1 = 'B';
+    private static final byte VERSION = 1;
+    private static final double PRICE_SCALE = 10_000.0;
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public String fileExtension() {
+        return ".order";
+    }
+
+    @Override
+    public void write(Order order, OutputStream out) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int company = intern(strings, order.getCompany());
+        List<FoodItem> foodList = order.getFoodList();
+        int[] names = new int[foodList.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = intern(strings, foodList.get(i).getName());
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + 16 * names.length);
+        buffer.write(MAGIC_0);
+        buffer.write(MAGIC_1);
+        buffer.write(VERSION);
+        writeVarint(buffer, order.getOrderID() & 0xFFFFFFFFL);
+        writeVarint(buffer, zigZag(order.getDate()));
+        writeVarint(buffer, zigZag(toFixed(order.getTotalPrice())));
+        buffer.write(code(order.getType()));
+        buffer.write(code(order.getStatus()));
+
+        writeVarint(buffer, strings.size());
+        for (String s : strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(buffer, bytes.length);
+            buffer.write(bytes);
+        }
+
+        writeVarint(buffer, company);
+        writeVarint(buffer, names.length);
+        for (int i = 0; i < names.length; i++) {
+            FoodItem item = foodList.get(i);
+            writeVarint(buffer, names[i]);
+            writeVarint(buffer, zigZag(item.getQuantity()));
+            writeVarint(buffer, zigZag(toFixed(item.getPrice())));
+        }
+        buffer.writeTo(out);
+    }
+
+    @Override
+    public Order read(File file) throws IOException {
+        Reader in = new Reader(Files.readAllBytes(file.toPath()), file.getName());
+        if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1 || in.readByte() != VERSION) {
+            throw in.error("not a version " + VERSION + " binary order");
+        }
+        int orderId = (int) in.readVarint();
+        long date = unZigZag(in.readVarint());
+        double totalPrice = fromFixed(unZigZag(in.readVarint()));
+        Type type = decode(Type.values(), in.readByte());
+        Status status = decode(Status.values(), in.readByte());
+
+        String[] strings = new String[in.readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readString();
+        }
+        String company = in.lookup(strings, in.readVarint());
+
+        int itemCount = in.readCount();
+        List<FoodItem> foodList = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            String name = in.lookup(strings, in.readVarint());
+            int quantity = (int) unZigZag(in.readVarint());
+            double price = fromFixed(unZigZag(in.readVarint()));
+            foodList.add(new FoodItem(name, quantity, price));
+        }
+
+        Order order = new Order(orderId, date, totalPrice, type, status, foodList);
+        order.setCompany(company);
+        return order;
+    }
+
+    private static int intern(Map<String, Integer> strings, String s) {
+        if (s == null) {
+            return 0;
+        }
+        Integer index = strings.putIfAbsent(s, strings.size());
+        return (index == null ? strings.size() - 1 : index) + 1;
+    }
+
+    private static long toFixed(double price) {
+        return Math.round(price * PRICE_SCALE);
+    }
+
+    private static double fromFixed(long fixed) {
+        return fixed / PRICE_SCALE;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static int code(Enum<?> value) {
+        return value == null ? 0xFF : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E decode(E[] values, byte code) {
+        int index = code & 0xFF;
+        return index < values.length ? values[index] : null;
+    }
+
+    /**
+     * Reads the fields of one file, reporting the file name and offset on malformed input.
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private final String source;
+        private int pos = 0;
+
+        private Reader(byte[] data, String source) {
+            this.data = data;
+            this.source = source;
+        }
+
+        private byte readByte() throws IOException {
+            if (pos >= data.length) {
+                throw error("unexpected end of file");
+            }
+            return data[pos++];
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw error("varint is too long");
+        }
+
+        /**
+         * Reads a count, checking it against the bytes left so a damaged file can't ask for a huge array.
+         */
+        private int readCount() throws IOException {
+            long count = readVarint();
+            if (count > data.length - pos) {
+                throw error("count " + count + " is larger than the file");
+            }
+            return (int) count;
+        }
+
+        private String readString() throws IOException {
+            int length = readCount();
+            String s = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        private String lookup(String[] strings, long reference) throws IOException {
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > strings.length) {
+                throw error("string reference " + reference + " is out of range");
+            }
+            return strings[(int) reference - 1];
+        }
+
+        private IOException error(String message) {
+            return new IOException("Malformed binary order in " + source + " at offset " + pos + ": " + message);
+        }
+    }
+}
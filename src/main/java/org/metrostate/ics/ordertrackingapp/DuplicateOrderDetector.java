@@ -0,0 +1,165 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Spots the same order arriving twice, for example re-sent under a new file name.
+ * Each order is reduced to a 64-bit fingerprint of its date, type, company and food items
+ * (name, quantity and price in cents, in any order), and the fingerprints seen within the
+ * time window are kept in a hash map, so a check is a single lookup.
+ *
+ * Orders restored from a previous run can be recorded so a file sent again after a restart
+ * is still recognised; the "Restored - " prefix on their company is ignored for that reason.
+ * Entries expire in the order they were recorded, so memory stays bounded by the window.
+ */
+public class DuplicateOrderDetector {
+    public static final long DEFAULT_WINDOW_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private static final String RESTORED_PREFIX = "Restored - ";
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * An order seen within the window.
+     */
+    private record Seen(long fingerprint, int orderId, long seenMillis) { }
+
+    private final long windowMillis;
+    private final LongSupplier clock;
+    // guarded by this
+    private final Map<Long, Seen> seen = new HashMap<>();
+    private final ArrayDeque<Seen> byAge = new ArrayDeque<>();
+
+    /**
+     * Creates a detector that remembers orders for a day.
+     */
+    public DuplicateOrderDetector() {
+        this(DEFAULT_WINDOW_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param windowMillis  How long an order is remembered after it is recorded
+     * @param clock         Supplies the current time in milliseconds
+     */
+    DuplicateOrderDetector(long windowMillis, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Looks for an order with the same contents recorded within the window.
+     *
+     * @param order The newly parsed order
+     * @return      The ID of the order it duplicates, or -1 if it is new
+     */
+    public synchronized int findDuplicate(Order order) {
+        expire();
+        Seen original = seen.get(fingerprint(order));
+        return original == null ? -1 : original.orderId();
+    }
+
+    /**
+     * Remembers an order so later copies of it are recognised.
+     *
+     * @param order An order with its ID assigned
+     */
+    public synchronized void record(Order order) {
+        expire();
+        long fingerprint = fingerprint(order);
+        if (!seen.containsKey(fingerprint)) {
+            Seen entry = new Seen(fingerprint, order.getOrderID(), clock.getAsLong());
+            seen.put(fingerprint, entry);
+            byAge.addLast(entry);
+        }
+    }
+
+    /**
+     * Remembers several orders, such as those restored at startup.
+     *
+     * @param orders Orders with their IDs assigned
+     */
+    public synchronized void recordAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            record(order);
+        }
+    }
+
+    /**
+     * Forgets every order.
+     */
+    public synchronized void clear() {
+        seen.clear();
+        byAge.clear();
+    }
+
+    /**
+     * @return The number of orders remembered
+     */
+    public synchronized int size() {
+        expire();
+        return seen.size();
+    }
+
+    private void expire() {
+        long cutoff = clock.getAsLong() - windowMillis;
+        while (!byAge.isEmpty() && byAge.peekFirst().seenMillis() < cutoff) {
+            seen.remove(byAge.removeFirst().fingerprint());
+        }
+    }
+
+    /**
+     * Hashes the fields that identify an order. The ID, status and total price are left out:
+     * each copy gets its own ID, and the total follows from the items.
+     *
+     * @param order The order
+     * @return      Its fingerprint
+     */
+    static long fingerprint(Order order) {
+        long h = mix(order.getDate());
+        h = mix(h ^ (order.getType() == null ? -1 : order.getType().ordinal()));
+        String company = order.getCompany();
+        if (company != null && company.startsWith(RESTORED_PREFIX)) {
+            company = company.substring(RESTORED_PREFIX.length());
+        }
+        h = mix(h ^ hash(company));
+
+        // summed so the items can be listed in any order
+        long items = 0;
+        for (FoodItem item : order.getFoodList()) {
+            long itemHash = mix(hash(item.getName()) ^ item.getQuantity());
+            items += mix(itemHash ^ Math.round(item.getPrice() * 100));
+        }
+        return mix(h ^ items ^ order.getFoodList().size());
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a string's UTF-8 bytes, 0 for null.
+     */
+    private static long hash(String s) {
+        if (s == null) {
+            return 0;
+        }
+        long h = FNV_OFFSET;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads every input bit over the whole result.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,33 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * FoodHub feed: one order per JSON file, {"order": {"order_date", "type", "items"}}.
+ */
+public final class FoodHubJSONAdapter implements OrderFeedAdapter {
+    public static final String COMPANY = "FoodHub (JSON)";
+
+    @Override
+    public String company() {
+        return COMPANY;
+    }
+
+    @Override
+    public List<String> fileExtensions() {
+        return List.of(".json");
+    }
+
+    @Override
+    public boolean sniff(byte[] head, int length) {
+        int first = OrderFeedAdapter.firstSignificantByte(head, length);
+        return first >= 0 && head[first] == '{';
+    }
+
+    @Override
+    public List<Order> read(File file) throws IOException {
+        return List.of(Parser.readJSONOrder(file));
+    }
+}
@@ -0,0 +1,33 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * GrubStop feed: one order per XML file, an Order element with OrderType and Item elements.
+ */
+public final class GrubStopXMLAdapter implements OrderFeedAdapter {
+    public static final String COMPANY = "GrubStop (XML)";
+
+    @Override
+    public String company() {
+        return COMPANY;
+    }
+
+    @Override
+    public List<String> fileExtensions() {
+        return List.of(".xml");
+    }
+
+    @Override
+    public boolean sniff(byte[] head, int length) {
+        int first = OrderFeedAdapter.firstSignificantByte(head, length);
+        return first >= 0 && head[first] == '<';
+    }
+
+    @Override
+    public List<Order> read(File file) throws IOException {
+        return List.of(Parser.readXMLOrder(file));
+    }
+}
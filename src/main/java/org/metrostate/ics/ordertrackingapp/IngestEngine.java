@@ -0,0 +1,201 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs order ingest without any user interface: watches the import directory, parses new files on
+ * the ingest pipeline and stores the orders in the OrderDriver, saving every order change.
+ * Nothing here touches JavaFX, so the tracker can run on a machine without a display and a busy
+ * UI thread can't slow ingest down.
+ *
+ * Orders are added to the driver straight from the pipeline's thread, one batch at a time, and
+ * subscribers are told about each batch afterwards. A user interface is just one subscriber,
+ * and is responsible for moving the update onto its own thread.
+ *
+ * A file is only marked in the ProcessedFileIndex once its orders have been written to storage,
+ * so after a crash it is ingested again instead of being skipped with its orders lost. Files that
+ * failed to parse are never marked, so they are tried again on the next start.
+ */
+public class IngestEngine {
+
+    /**
+     * Receives every batch the engine has stored.
+     */
+    public interface Subscriber {
+        /**
+         * Called after a batch of orders was added to the driver.
+         * Runs on the pipeline's thread, one batch at a time, so it should hand the work off quickly.
+         *
+         * @param orders        the orders added, with their IDs assigned
+         * @param failedFiles   files that could not be parsed
+         * @param duplicates    files whose order was already in the driver, and were left out
+         */
+        void onIngested(List<Order> orders, List<File> failedFiles, List<OrderIngestPipeline.Duplicate> duplicates);
+    }
+
+    private final OrderDriver driver;
+    private final OrderPersistence persistence;
+    private final ProcessedFileIndex processedFiles;
+    private final DuplicateOrderDetector duplicateOrders = new DuplicateOrderDetector();
+    private final OrderIngestPipeline pipeline;
+    private final OrderListener listener;
+    private final OrderDriver.OrderChangeListener storeListener;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    /**
+     * Creates an engine. Orders already in the driver count as seen, so their files aren't added again.
+     *
+     * @param importDirectory   The directory to watch for order files, or null to only take files from submit()
+     * @param driver            Where ingested orders are stored
+     * @param orderIds          Where new orders get their IDs
+     * @param processedFiles    The files already ingested, or null to only remember them for this session;
+     *                          closed by stop()
+     * @param persistence       Where order changes are saved, or null to keep orders in memory only
+     */
+    public IngestEngine(String importDirectory, OrderDriver driver, OrderIdAllocator orderIds,
+                        ProcessedFileIndex processedFiles, OrderPersistence persistence) {
+        this.driver = driver;
+        this.persistence = persistence;
+        this.processedFiles = processedFiles != null ? processedFiles : new ProcessedFileIndex();
+        duplicateOrders.recordAll(driver.getOrders());
+        this.pipeline = new OrderIngestPipeline(orderIds, duplicateOrders, this::store);
+        this.listener = importDirectory == null ? null
+                : new OrderListener(importDirectory, pipeline::submit, this.processedFiles);
+
+        // saves changes made anywhere, including status changes from the UI
+        this.storeListener = new OrderDriver.OrderChangeListener() {
+            @Override
+            public void orderAdded(Order order) {
+                if (persistence != null) persistence.save(order);
+            }
+
+            @Override
+            public void ordersAdded(List<Order> orders) {
+                if (persistence != null) persistence.saveAll(orders);
+            }
+
+            @Override
+            public void orderChanged(Order order) {
+                if (persistence != null) persistence.save(order);
+            }
+        };
+        driver.addListener(storeListener);
+    }
+
+    /**
+     * Starts watching the import directory. Files already in it are ingested first.
+     */
+    public void start() {
+        if (listener != null) {
+            listener.start();
+        }
+    }
+
+    /**
+     * Queues an order file for parsing, blocking while the parse queue is full.
+     *
+     * @param file The order file
+     */
+    public void submit(File file) {
+        if (file != null) {
+            pipeline.submit(file);
+        }
+    }
+
+    /**
+     * @param subscriber Told about every batch stored from now on
+     */
+    public void addSubscriber(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * @param subscriber No longer told about new batches
+     */
+    public void removeSubscriber(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return The driver the orders are stored in
+     */
+    public OrderDriver getOrderDriver() {
+        return driver;
+    }
+
+    /**
+     * Removes every order from the driver and from storage, and forgets them for duplicate checks.
+     */
+    public void clearAllOrders() {
+        driver.clearAllOrders();
+        if (persistence != null) {
+            persistence.clear();
+        }
+        duplicateOrders.clear();
+    }
+
+    /**
+     * Queues every order in the driver to be saved, such as right before the application exits.
+     */
+    public void saveAll() {
+        if (persistence != null) {
+            persistence.saveAll(driver.getOrders());
+        }
+    }
+
+    /**
+     * Stops watching, finishes the files already queued and writes the order changes still waiting.
+     * Waits up to OrderIngestPipeline.DEFAULT_DRAIN_TIMEOUT_MILLIS for the queue; files dropped after that
+     * were never marked as processed, so they are ingested on the next start.
+     * Closes the processed file index last, so every exit path leaves it flushed.
+     * Does nothing if the engine was already stopped.
+     */
+    public void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        // stop first so no new files are queued while the pipeline drains
+        if (listener != null) {
+            listener.stop();
+        }
+        pipeline.shutdown();
+        driver.removeListener(storeListener);
+        if (persistence != null) {
+            persistence.shutdown();
+        }
+        processedFiles.close();
+    }
+
+    /**
+     * Pipeline handler: stores a batch, writes it to storage, marks its files as processed,
+     * then tells the subscribers.
+     */
+    private void store(List<Order> orders, List<File> failedFiles, List<OrderIngestPipeline.Duplicate> duplicates,
+                       List<File> parsedFiles) {
+        if (!orders.isEmpty()) {
+            // the driver's listeners see one ordersAdded event for the batch, which queues it for saving
+            driver.addOrders(orders);
+        }
+        // one synced write for the batch; if it fails the files stay unmarked and are ingested again next time
+        boolean saved = persistence == null || orders.isEmpty() || persistence.sync();
+        if (saved) {
+            for (File file : parsedFiles) {
+                processedFiles.markProcessed(file.toPath());
+            }
+            if (!parsedFiles.isEmpty()) {
+                processedFiles.sync();
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onIngested(orders, failedFiles, duplicates);
+            } catch (RuntimeException e) {
+                System.err.println("Error notifying ingest subscriber: " + e.getMessage());
+            }
+        }
+    }
+}
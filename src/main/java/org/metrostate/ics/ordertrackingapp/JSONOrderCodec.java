@@ -0,0 +1,56 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Saves orders as JSON (Saved_Order(id).json), the format older versions used.
+ * Orders are written without indentation; files written pretty-printed by older versions still read fine.
+ */
+final class JSONOrderCodec implements OrderCodec {
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public String fileExtension() {
+        return ".json";
+    }
+
+    @Override
+    public void write(Order order, OutputStream out) throws IOException {
+        JSONObject OrderJSON = new JSONObject();
+
+        OrderJSON.put("orderID", order.getOrderID());
+        OrderJSON.put("date", order.getDate());
+        OrderJSON.put("totalPrice", order.getTotalPrice());
+        OrderJSON.put("type", order.getType());
+        OrderJSON.put("status", order.getStatus());
+        OrderJSON.put("company", order.getCompany());
+
+        JSONArray orderFoodsList = new JSONArray();
+        for (FoodItem food : order.getFoodList()) {
+            JSONObject foodJSON = new JSONObject();
+            foodJSON.put("name", food.getName());
+            foodJSON.put("quantity", food.getQuantity());
+            foodJSON.put("price", food.getPrice());
+            orderFoodsList.put(foodJSON);
+        }
+
+        OrderJSON.put("foodList", orderFoodsList);
+
+        out.write(OrderJSON.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Order read(File file) throws IOException {
+        return Parser.readSavedJSONOrder(file);
+    }
+}
@@ -0,0 +1,458 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Small pull-based JSON reader used by the Parser for order files.
+ * Values are read one token at a time straight from the file bytes, so no JSONObject/JSONArray
+ * tree is built and numbers are read as primitives.
+ * The file is read (as UTF-8) into a byte buffer that is pooled per thread and handed back on close,
+ * so a reader must be closed and not shared between threads.
+ */
+final class JSONPullReader implements Closeable {
+    /**
+     * Buffers larger than this are not kept in the pool after use.
+     */
+    private static final int MAX_POOLED_BUFFER = 1 << 20;
+    private static final int INITIAL_BUFFER = 8 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER_POOL = new ThreadLocal<>();
+
+    private final String source;
+    private byte[] buf;
+    // only buffers taken from the pool by open() go back to it, not the exact-size bytes of of()
+    private final boolean pooled;
+    private final int limit;
+    private int pos;
+    // true after a value was read, so the next hasNext() expects a comma
+    private boolean needsSeparator;
+
+    private JSONPullReader(String source, byte[] buf, int limit, boolean pooled) {
+        this.source = source;
+        this.buf = buf;
+        this.limit = limit;
+        this.pooled = pooled;
+        this.pos = 0;
+        // skip a UTF-8 byte order mark if the file has one
+        if (limit >= 3 && (buf[0] & 0xFF) == 0xEF && (buf[1] & 0xFF) == 0xBB && (buf[2] & 0xFF) == 0xBF) {
+            pos = 3;
+        }
+    }
+
+    /**
+     * Opens a reader over the whole contents of a file.
+     *
+     * @param file          JSON file to be read
+     * @return              reader positioned before the first value
+     * @throws IOException  if the file cannot be read
+     */
+    static JSONPullReader open(File file) throws IOException {
+        byte[] buffer = BUFFER_POOL.get();
+        BUFFER_POOL.set(null);
+        if (buffer == null) {
+            buffer = new byte[INITIAL_BUFFER];
+        }
+
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        } catch (IOException e) {
+            release(buffer);
+            throw e;
+        }
+        return new JSONPullReader(file.getName(), buffer, length, true);
+    }
+
+    /**
+     * Creates a reader over an in-memory UTF-8 JSON document.
+     *
+     * @param json  JSON text
+     * @return      reader positioned before the first value
+     */
+    static JSONPullReader of(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new JSONPullReader("<string>", bytes, bytes.length, false);
+    }
+
+    /**
+     * Hands the buffer back to this thread's pool, if it came from there.
+     */
+    @Override
+    public void close() {
+        if (buf != null) {
+            if (pooled) {
+                release(buf);
+            }
+            buf = null;
+        }
+    }
+
+    private static void release(byte[] buffer) {
+        // open() needs room to read into, so a buffer smaller than it would allocate isn't kept
+        if (buffer.length >= INITIAL_BUFFER && buffer.length <= MAX_POOLED_BUFFER) {
+            BUFFER_POOL.set(buffer);
+        }
+    }
+
+    /**
+     * Consumes the start of an object.
+     */
+    void beginObject() throws IOException {
+        expect('{');
+        needsSeparator = false;
+    }
+
+    /**
+     * Consumes the end of an object.
+     */
+    void endObject() throws IOException {
+        expect('}');
+        needsSeparator = true;
+    }
+
+    /**
+     * Consumes the start of an array.
+     */
+    void beginArray() throws IOException {
+        expect('[');
+        needsSeparator = false;
+    }
+
+    /**
+     * Consumes the end of an array.
+     */
+    void endArray() throws IOException {
+        expect(']');
+        needsSeparator = true;
+    }
+
+    /**
+     * Returns true if the current object or array has another member,
+     * consuming the separating comma if there is one.
+     *
+     * @return true if there is another name or value to read
+     */
+    boolean hasNext() throws IOException {
+        int c = peekChar();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (needsSeparator) {
+            if (c != ',') {
+                throw error("expected ',' but found " + describe(c));
+            }
+            pos++;
+            needsSeparator = false;
+            c = peekChar();
+            if (c == '}' || c == ']') {
+                throw error("trailing ','");
+            }
+        }
+        return c != -1;
+    }
+
+    /**
+     * Reads an object member name and the colon after it.
+     *
+     * @return the member name
+     */
+    String nextName() throws IOException {
+        String name = readString();
+        expect(':');
+        needsSeparator = false;
+        return name;
+    }
+
+    /**
+     * Returns true if the next value is the literal null.
+     */
+    boolean peekNull() throws IOException {
+        return peekChar() == 'n';
+    }
+
+    /**
+     * Reads a string value.
+     *
+     * @return the decoded string
+     */
+    String nextString() throws IOException {
+        String value = readString();
+        needsSeparator = true;
+        return value;
+    }
+
+    /**
+     * Reads a number (or a string holding a number) as a long.
+     * Fractions are truncated the same way Number.longValue() does.
+     *
+     * @return the value as a long
+     */
+    long nextLong() throws IOException {
+        long value;
+        if (peekChar() == '"') {
+            String text = readString().trim();
+            try {
+                value = Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                value = (long) parseDouble(text);
+            }
+        } else {
+            int start = pos;
+            int end = scanNumber();
+            value = parseLong(start, end);
+        }
+        needsSeparator = true;
+        return value;
+    }
+
+    /**
+     * Reads a number (or a string holding a number) as an int.
+     *
+     * @return the value as an int
+     */
+    int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    /**
+     * Reads a number (or a string holding a number) as a double.
+     *
+     * @return the value as a double
+     */
+    double nextDouble() throws IOException {
+        double value;
+        if (peekChar() == '"') {
+            value = parseDouble(readString().trim());
+        } else {
+            int start = pos;
+            int end = scanNumber();
+            value = parseDouble(new String(buf, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        needsSeparator = true;
+        return value;
+    }
+
+    /**
+     * Skips the next value, including any nested objects or arrays.
+     */
+    void skipValue() throws IOException {
+        int c = peekChar();
+        switch (c) {
+            case '{' -> {
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+            }
+            case '[' -> {
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+            }
+            case '"' -> {
+                readString();
+                needsSeparator = true;
+            }
+            case 't' -> literal("true");
+            case 'f' -> literal("false");
+            case 'n' -> literal("null");
+            default -> {
+                scanNumber();
+                needsSeparator = true;
+            }
+        }
+    }
+
+    /**
+     * Consumes the literal null.
+     */
+    void nextNull() throws IOException {
+        literal("null");
+    }
+
+    private void literal(String word) throws IOException {
+        peekChar();
+        int end = pos + word.length();
+        if (end > limit) {
+            throw error("expected " + word);
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (buf[pos + i] != word.charAt(i)) {
+                throw error("expected " + word);
+            }
+        }
+        pos = end;
+        needsSeparator = true;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        int start = pos;
+        // fast path: no escapes, decode the bytes directly
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == '"') {
+                String value = new String(buf, start, pos - start, StandardCharsets.UTF_8);
+                pos++;
+                return value;
+            }
+            if (b == '\\') {
+                return readEscapedString(start);
+            }
+            pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    private String readEscapedString(int start) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int chunk = start;
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == '"') {
+                sb.append(new String(buf, chunk, pos - chunk, StandardCharsets.UTF_8));
+                pos++;
+                return sb.toString();
+            }
+            if (b != '\\') {
+                pos++;
+                continue;
+            }
+            sb.append(new String(buf, chunk, pos - chunk, StandardCharsets.UTF_8));
+            if (pos + 1 >= limit) {
+                break;
+            }
+            byte escaped = buf[pos + 1];
+            pos += 2;
+            switch (escaped) {
+                case '"' -> sb.append('"');
+                case '\\' -> sb.append('\\');
+                case '/' -> sb.append('/');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > limit) {
+                        throw error("bad unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(new String(buf, pos, 4, StandardCharsets.ISO_8859_1), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad unicode escape");
+                    }
+                    pos += 4;
+                }
+                default -> throw error("bad escape \\" + (char) escaped);
+            }
+            chunk = pos;
+        }
+        throw error("unterminated string");
+    }
+
+    /**
+     * Moves past a number token and returns its end offset.
+     */
+    private int scanNumber() throws IOException {
+        peekChar();
+        int start = pos;
+        while (pos < limit) {
+            byte b = buf[pos];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (pos == start) {
+            throw error("expected a value but found " + describe(start < limit ? buf[start] : -1));
+        }
+        return pos;
+    }
+
+    private long parseLong(int start, int end) throws IOException {
+        boolean negative = buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        // integral fast path, anything else goes through Double like Number.longValue()
+        if (end - i > 0 && end - i <= 18) {
+            long value = 0;
+            boolean integral = true;
+            for (int j = i; j < end; j++) {
+                byte b = buf[j];
+                if (b < '0' || b > '9') {
+                    integral = false;
+                    break;
+                }
+                value = value * 10 + (b - '0');
+            }
+            if (integral) {
+                return negative ? -value : value;
+            }
+        }
+        String text = new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return (long) parseDouble(text);
+        }
+    }
+
+    private double parseDouble(String text) throws IOException {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("bad number \"" + text + "\"");
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        int found = peekChar();
+        if (found != c) {
+            throw error("expected '" + c + "' but found " + describe(found));
+        }
+        pos++;
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it, or -1 at the end.
+     */
+    private int peekChar() throws IOException {
+        if (buf == null) {
+            throw new IOException("Reader for " + source + " is closed");
+        }
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                pos++;
+            } else {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of file" : "'" + (char) c + "'";
+    }
+
+    private IOException error(String message) {
+        return new IOException("Malformed JSON in " + source + " at offset " + pos + ": " + message);
+    }
+}
@@ -1,5 +1,10 @@
 package org.metrostate.ics.ordertrackingapp;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,13 +12,27 @@ import static org.metrostate.ics.ordertrackingapp.Status.*;
 
 /**
  * Represents a customer's order in the system.
+ * The status can be read and changed from any thread. Once an order is in an OrderDriver its status
+ * should be changed through the driver, which keeps its status indexes in step.
  */
 public class Order {
+    private static final VarHandle STATUS;
+    // built once, both are immutable and safe to share between threads
+    private static final ZoneId DISPLAY_ZONE = ZoneId.of("America/Chicago");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm z").withZone(DISPLAY_ZONE);
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(Order.class, "status", Status.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private int orderId;
     private long date;
     private double totalPrice;
     private Type type;
-    private Status status;
+    private volatile Status status;
     private ArrayList<FoodItem> foodList;
     private String company;
 
@@ -122,6 +141,16 @@ public class Order {
         return orderId;
     }
 
+    /**
+     * Sets the unique ID of the order.
+     * Used by the Parser to give an ID to an order once it has been parsed.
+     *
+     * @param orderId The order ID
+     */
+    void setOrderID(int orderId) {
+        this.orderId = orderId;
+    }
+
     /**
      * Recalculates the total price of the current food list.
      *
@@ -168,11 +197,30 @@ public class Order {
 
     /**
      * Updates the status of the order.
+     * Meant for orders that aren't in an OrderDriver yet, such as while parsing or restoring them;
+     * once the driver holds the order its own methods keep its status indexes correct.
      *
      * @param newStatus The new status
      */
     public void setStatus(Status newStatus) {
-        this.status = newStatus;
+        // goes through the same atomic update as the driver, so it never lands in the middle of a transition
+        Status current;
+        do {
+            current = status;
+        } while (!compareAndSetStatus(current, newStatus));
+    }
+
+    /**
+     * Updates the status of the order only if it currently has the expected status.
+     * The check and the update happen as one atomic step, so two threads can't both make the same change.
+     * Used by OrderDriver, which updates its status indexes along with it.
+     *
+     * @param expectedStatus    The status the order must have
+     * @param newStatus         The new status
+     * @return                  true if the status was changed
+     */
+    boolean compareAndSetStatus(Status expectedStatus, Status newStatus) {
+        return STATUS.compareAndSet(this, expectedStatus, newStatus);
     }
 
     /**
@@ -182,17 +230,39 @@ public class Order {
      */
     @Override
     public String toString() {
+        return describeHeader() + describeStatus() + describeItems();
+    }
+
+    /**
+     * Returns the part of toString before the status: the order number and date.
+     *
+     * @return The order number and formatted date
+     */
+    String describeHeader() {
+        return "Order #" + orderId + "\n" +
+                DATE_FORMAT.format(Instant.ofEpochMilli(this.date)) + "\n\n";
+    }
+
+    /**
+     * Returns the status line of toString, the only part that changes once an order is on the board.
+     *
+     * @return The status line
+     */
+    String describeStatus() {
+        return "Status: " + displayStatus() + '\n';
+    }
+
+    /**
+     * Returns the part of toString after the status: the type, food items and total price.
+     *
+     * @return The type, items and total
+     */
+    String describeItems() {
         StringBuilder s = new StringBuilder();
         for(FoodItem foodItem: foodList){
             s.append(foodItem.toString());
         }
-        java.time.ZonedDateTime zdt = java.time.Instant.ofEpochMilli(this.date).atZone(java.time.ZoneId.of("America/Chicago"));
-        String formattedDate = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm z").format(zdt);
-
-        return "Order #" + orderId + "\n" +
-                formattedDate + "\n\n" +
-                "Status: " + displayStatus() + '\n' +
-                "Type: " + displayType() + '\n' +
+        return "Type: " + displayType() + '\n' +
                 "Items: " + s +
                 String.format("\n\nTotal Price: $%.2f", totalPrice);
     }
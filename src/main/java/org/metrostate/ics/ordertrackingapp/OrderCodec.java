@@ -0,0 +1,114 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Format used to save a single order to a file and read it back.
+ * JSON is the default; BINARY is a compact format for large saved-order directories.
+ *
+ * A directory can choose its format with an order-codec.properties file containing
+ * codec=json or codec=binary. Saved files are always read with the codec matching their
+ * extension, so a directory can be switched without converting the files already in it.
+ */
+public interface OrderCodec {
+    /**
+     * Name of the optional per-directory settings file.
+     */
+    String SETTINGS_FILE = "order-codec.properties";
+
+    OrderCodec JSON = new JSONOrderCodec();
+    OrderCodec BINARY = new BinaryOrderCodec();
+
+    /**
+     * @return The name used in order-codec.properties, such as "json"
+     */
+    String name();
+
+    /**
+     * @return The file extension for saved orders, including the dot
+     */
+    String fileExtension();
+
+    /**
+     * Writes one order.
+     *
+     * @param order         The order to write
+     * @param out           Where to write it; not closed
+     * @throws IOException  if the order can't be written
+     */
+    void write(Order order, OutputStream out) throws IOException;
+
+    /**
+     * Reads one saved order, exactly as it was written.
+     *
+     * @param file          The saved order file
+     * @return              The order
+     * @throws IOException  if the file can't be read or is malformed
+     */
+    Order read(File file) throws IOException;
+
+    /**
+     * Returns the codec with the given name.
+     *
+     * @param name  "json" or "binary"
+     * @return      The codec, or null if there is none with that name
+     */
+    static OrderCodec byName(String name) {
+        if (name == null) return null;
+        return switch (name.trim().toLowerCase()) {
+            case "json" -> JSON;
+            case "binary" -> BINARY;
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the codec that wrote a saved order file, judged by its extension.
+     *
+     * @param file  The saved order file
+     * @return      The codec, or null if the extension isn't a saved order format
+     */
+    static OrderCodec forFile(File file) {
+        String name = file.getName().toLowerCase();
+        for (OrderCodec codec : new OrderCodec[] {JSON, BINARY}) {
+            if (name.endsWith(codec.fileExtension())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the codec new orders in a directory are saved with.
+     * The settings file is read the first time a directory is used and then remembered.
+     *
+     * @param directory The saved orders directory
+     * @return          The configured codec, JSON if none is configured
+     */
+    static OrderCodec forDirectory(File directory) {
+        return OrderCodecSettings.CODECS.computeIfAbsent(directory.getAbsolutePath(), path -> {
+            File settings = new File(path, SETTINGS_FILE);
+            if (!settings.isFile()) {
+                return JSON;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(settings)) {
+                properties.load(in);
+            } catch (IOException e) {
+                System.err.println("Error reading " + settings + ": " + e.getMessage());
+                return JSON;
+            }
+            OrderCodec codec = byName(properties.getProperty("codec"));
+            if (codec == null) {
+                System.err.println("Unknown codec in " + settings + ", saving orders as JSON");
+                return JSON;
+            }
+            return codec;
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the codec chosen for each saved-orders directory by OrderCodec.forDirectory,
+ * which an interface can't keep as a private field.
+ */
+final class OrderCodecSettings {
+    // absolute directory path -> codec new orders there are saved with
+    static final Map<String, OrderCodec> CODECS = new ConcurrentHashMap<>();
+
+    private OrderCodecSettings() { }
+}
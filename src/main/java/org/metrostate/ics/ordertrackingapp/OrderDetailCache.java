@@ -0,0 +1,82 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the detail text of recently shown orders, so selecting an order again doesn't reformat it.
+ * An order's date, type and items don't change once it is on the board, so they are formatted once;
+ * when its status changes only the status line is redone and the text is joined again.
+ *
+ * Only used on the JavaFX thread. The least recently shown orders are dropped once the cache is full.
+ */
+public class OrderDetailCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /**
+     * The detail text of one order, and the status it was built for.
+     */
+    private record Detail(Order order, Status status, String header, String items, String text) { }
+
+    private final Map<Integer, Detail> details;
+
+    /**
+     * Creates a cache holding up to DEFAULT_MAX_ENTRIES orders.
+     */
+    public OrderDetailCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries How many orders are kept
+     */
+    public OrderDetailCache(int maxEntries) {
+        // access order, so the eldest entry is the one shown least recently
+        this.details = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Detail> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the order's detail text, the same as its toString.
+     *
+     * @param order The order
+     * @return      Its detail text, rebuilt only if its status changed since it was last shown
+     */
+    public String getText(Order order) {
+        Detail detail = details.get(order.getOrderID());
+        Status status = order.getStatus();
+        if (detail != null && detail.order() == order) {
+            if (detail.status() == status) {
+                return detail.text();
+            }
+            detail = new Detail(order, status, detail.header(), detail.items(),
+                    detail.header() + order.describeStatus() + detail.items());
+        } else {
+            String header = order.describeHeader();
+            String items = order.describeItems();
+            detail = new Detail(order, status, header, items, header + order.describeStatus() + items);
+        }
+        details.put(order.getOrderID(), detail);
+        return detail.text();
+    }
+
+    /**
+     * Forgets every order, such as when all orders are cleared.
+     */
+    public void clear() {
+        details.clear();
+    }
+
+    /**
+     * @return The number of orders kept
+     */
+    public int size() {
+        return details.size();
+    }
+}
@@ -1,21 +1,75 @@
 package org.metrostate.ics.ordertrackingapp;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages a collection of orders in the system.
  * Provides methods to add, start, complete, display, and export orders.
+ * Orders are indexed by ID, status and type so lookups and filters don't scan every order.
+ * Status changes must go through the driver (startOrder, completeOrder, ...) to keep the indexes correct.
+ *
+ * The driver is safe to use from several threads at once. Reads never lock: getOrders() returns an
+ * immutable snapshot and the indexes are concurrent maps. Status changes lock only a stripe picked by
+ * the order and use compare-and-set, so two threads can't both start or complete the same order.
+ * Adding orders takes a short append lock that readers and status changes never wait on.
  */
 public class OrderDriver {
-    private List<Order> orders;
-    private Order lastCancelledOrder = null;
+    private static final int LOCK_STRIPES = 32;
+
+    /**
+     * Immutable view of the orders list: the first size slots of items never change once published.
+     */
+    private record Snapshot(Order[] items, int size) { }
+
+    private static final Snapshot EMPTY = new Snapshot(new Order[0], 0);
+
+    private volatile Snapshot orders = EMPTY;
+    private final Object appendLock = new Object();
+    private volatile Order lastCancelledOrder = null;
+
+    /**
+     * Where an order sits in the indexes: its position in the orders list and the status it is filed under.
+     * The status is only touched while holding the order's stripe lock.
+     */
+    private static final class IndexEntry {
+        private final int position;
+        private Status status;
+
+        private IndexEntry(int position, Status status) {
+            this.position = position;
+            this.status = status;
+        }
+    }
+
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    private final Map<Integer, Order> ordersById = new ConcurrentHashMap<>();
+    // Order doesn't override equals/hashCode, so this is keyed by identity
+    private final Map<Order, IndexEntry> indexEntries = new ConcurrentHashMap<>();
+    // buckets are keyed by position so each one iterates in the order the orders were added
+    private final EnumMap<Status, ConcurrentSkipListMap<Integer, Order>> ordersByStatus = new EnumMap<>(Status.class);
+    private final EnumMap<Status, AtomicInteger> statusCounts = new EnumMap<>(Status.class);
+    private final EnumMap<Type, ConcurrentSkipListMap<Integer, Order>> ordersByType = new EnumMap<>(Type.class);
+    // a skip list's size() walks the whole list, so the bucket sizes are counted separately
+    private final EnumMap<Type, AtomicInteger> typeCounts = new EnumMap<>(Type.class);
 
     /**
      * Listener to watch for changes to an order's status -- in order to update the GUI when buttons are clicked.
@@ -28,6 +82,18 @@ public class OrderDriver {
          */
         void orderAdded(Order order);
 
+        /**
+         * Called once when several orders are added together with addOrders.
+         * By default this calls orderAdded for each order.
+         *
+         * @param orders The newly added orders, in the order they were added
+         */
+        default void ordersAdded(List<Order> orders) {
+            for (Order order : orders) {
+                orderAdded(order);
+            }
+        }
+
         /**
          * Called when an existing order is updated.
          *
@@ -36,7 +102,7 @@ public class OrderDriver {
         void orderChanged(Order order);
     }
 
-    private final List<OrderChangeListener> listeners = new ArrayList<>();
+    private final List<OrderChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Adds a listener.
@@ -63,18 +129,29 @@ public class OrderDriver {
      * @param o The order that was added
      */
     private void notifyOrderAdded(Order o) {
-        for (OrderChangeListener l : new ArrayList<>(listeners)) {
+        for (OrderChangeListener l : listeners) {
             try { l.orderAdded(o); } catch (Exception ignored) {}
         }
     }
 
+    /**
+     * Notifies all listeners that several orders have been added, with a single event.
+     *
+     * @param added The orders that were added
+     */
+    private void notifyOrdersAdded(List<Order> added) {
+        for (OrderChangeListener l : listeners) {
+            try { l.ordersAdded(added); } catch (Exception ignored) {}
+        }
+    }
+
     /**
      * Notifies all listeners that an order has changed, updating the GUI.
      *
      * @param o The order that changed
      */
     private void notifyOrderChanged(Order o) {
-        for (OrderChangeListener l : new ArrayList<>(listeners)) {
+        for (OrderChangeListener l : listeners) {
             try { l.orderChanged(o); } catch (Exception ignored) {}
         }
     }
@@ -83,7 +160,115 @@ public class OrderDriver {
      * Constructs a new OrderDriver with empty lists for all orders, incomplete orders, and completed orders (empty constructor).
      */
     public OrderDriver() {
-        orders = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        for (Status status : Status.values()) {
+            ordersByStatus.put(status, new ConcurrentSkipListMap<>());
+            statusCounts.put(status, new AtomicInteger());
+        }
+        for (Type type : Type.values()) {
+            ordersByType.put(type, new ConcurrentSkipListMap<>());
+            typeCounts.put(type, new AtomicInteger());
+        }
+    }
+
+    /**
+     * @param order The order
+     * @return      The lock guarding the order's status and index entry
+     */
+    private Object stripeFor(Order order) {
+        return stripes[(System.identityHashCode(order) & 0x7fffffff) % stripes.length];
+    }
+
+    /**
+     * Appends orders to the list and the indexes, then publishes a new snapshot.
+     * Slots past the current size are written in place, so readers holding an older
+     * snapshot never see them change.
+     *
+     * @param added The orders to append
+     */
+    private void append(List<Order> added) {
+        synchronized (appendLock) {
+            Snapshot current = orders;
+            Order[] items = current.items();
+            int size = current.size();
+            if (size + added.size() > items.length) {
+                items = Arrays.copyOf(items, Math.max(16, Math.max(items.length * 2, size + added.size())));
+            }
+            for (Order order : added) {
+                items[size] = order;
+                index(order, size);
+                size++;
+            }
+            orders = new Snapshot(items, size);
+        }
+    }
+
+    /**
+     * Adds an order to the ID, status and type indexes.
+     *
+     * @param order     The order to index
+     * @param position  The order's position in the orders list
+     */
+    private void index(Order order, int position) {
+        // file the status under the stripe lock so a concurrent status change can't be missed
+        synchronized (stripeFor(order)) {
+            Status status = order.getStatus();
+            indexEntries.put(order, new IndexEntry(position, status));
+            if (status != null) {
+                ordersByStatus.get(status).put(position, order);
+                statusCounts.get(status).incrementAndGet();
+            }
+        }
+        Type type = order.getType();
+        if (type != null) {
+            ordersByType.get(type).put(position, order);
+            typeCounts.get(type).incrementAndGet();
+        }
+        ordersById.putIfAbsent(order.getOrderID(), order);
+    }
+
+    /**
+     * Changes an order's status from expectedStatus to newStatus and moves it to the matching status bucket.
+     * Does nothing if the order doesn't have expectedStatus any more.
+     *
+     * @param order             The order to update
+     * @param expectedStatus    The status the order must have
+     * @param newStatus         The new status
+     * @return                  true if the status was changed
+     */
+    private boolean transition(Order order, Status expectedStatus, Status newStatus) {
+        synchronized (stripeFor(order)) {
+            if (!order.compareAndSetStatus(expectedStatus, newStatus)) {
+                return false;
+            }
+            refile(order, newStatus);
+            return true;
+        }
+    }
+
+    /**
+     * Moves an order to the bucket for its new status. Must hold the order's stripe lock.
+     * The order is added to the new bucket before it leaves the old one, so a reader never misses it.
+     *
+     * @param order     The order that changed
+     * @param newStatus The order's new status
+     */
+    private void refile(Order order, Status newStatus) {
+        IndexEntry entry = indexEntries.get(order);
+        if (entry == null || entry.status == newStatus) {
+            return;
+        }
+        if (newStatus != null) {
+            ordersByStatus.get(newStatus).put(entry.position, order);
+            statusCounts.get(newStatus).incrementAndGet();
+        }
+        if (entry.status != null) {
+            ordersByStatus.get(entry.status).remove(entry.position);
+            statusCounts.get(entry.status).decrementAndGet();
+        }
+        entry.status = newStatus;
     }
 
     /**
@@ -93,10 +278,25 @@ public class OrderDriver {
      * @param order The order to add
      */
     public void addOrder(Order order) {
-        orders.add(order);
+        append(List.of(order));
         notifyOrderAdded(order);
     }
 
+    /**
+     * Adds several orders to the system at once.
+     * Listeners get a single ordersAdded event instead of one orderAdded per order.
+     *
+     * @param newOrders The orders to add
+     */
+    public void addOrders(Collection<Order> newOrders) {
+        if (newOrders == null || newOrders.isEmpty()) {
+            return;
+        }
+        List<Order> added = new ArrayList<>(newOrders);
+        append(added);
+        notifyOrdersAdded(added);
+    }
+
     /**
      * Returns the total number of orders in the system.
      *
@@ -114,8 +314,7 @@ public class OrderDriver {
      */
     public void startOrder(Order order) {
         // only start if it's waiting, otherwise do nothing
-        if (order.getStatus() == Status.waiting) {
-            order.setStatus(Status.inProgress);
+        if (transition(order, Status.waiting, Status.inProgress)) {
             notifyOrderChanged(order);
         }
     }
@@ -128,82 +327,218 @@ public class OrderDriver {
      */
     public void completeOrder(Order order) {
         // only complete if it's in progress, otherwise do nothing
-        if (order.getStatus() == Status.inProgress) {
-            order.setStatus(Status.completed);
+        if (transition(order, Status.inProgress, Status.completed)) {
             notifyOrderChanged(order);
         }
     }
 
     /**
-     * Exports a single order as a JSON file to the savedOrders directory.
+     * Exports a single order to the savedOrders directory, in the directory's OrderCodec format (JSON by default).
+     * The file is written next to its final name and then moved into place, so a crash
+     * mid-write never leaves a truncated order file behind.
      *
      * @param order             The order to save
-     * @param fileDirectory     The folder where the JSON file will be created
+     * @param fileDirectory     The folder where the order file will be created
      */
     public static void orderExportJSON(Order order, String fileDirectory) {
-        JSONObject OrderJSON = new JSONObject();
-
-        OrderJSON.put("orderID", order.getOrderID());
-        OrderJSON.put("date", order.getDate());
-        OrderJSON.put("totalPrice", order.getTotalPrice());
-        OrderJSON.put("type", order.getType());
-        OrderJSON.put("status", order.getStatus());
-        OrderJSON.put("company", order.getCompany());
-
-        JSONArray orderFoodsList = new JSONArray();
-        for (FoodItem food : order.getFoodList()) {
-            JSONObject foodJSON = new JSONObject();
-            foodJSON.put("name", food.getName());
-            foodJSON.put("quantity", food.getQuantity());
-            foodJSON.put("price", food.getPrice());
-            orderFoodsList.put(foodJSON);
-        }
-
-        OrderJSON.put("foodList", orderFoodsList);
-
-        String fileName = "Saved_Order" + order.getOrderID() + ".json";
-        String filePath = fileDirectory + File.separator + fileName;
+        orderExportJSON(order, fileDirectory, false);
+    }
 
+    /**
+     * Exports a single order to the savedOrders directory, in the directory's OrderCodec format (JSON by default).
+     * The file is written next to its final name and then moved into place, so a crash
+     * mid-write never leaves a truncated order file behind.
+     *
+     * @param order             The order to save
+     * @param fileDirectory     The folder where the order file will be created
+     * @param sync              true to force the file and the directory entry to disk before returning
+     */
+    public static void orderExportJSON(Order order, String fileDirectory, boolean sync) {
         File fileDir = new File(fileDirectory);
         if (!fileDir.exists()) {
             fileDir.mkdirs();
         }
 
-        try (FileWriter fw = new FileWriter(filePath)) {
-            fw.write(OrderJSON.toString(4));
-            fw.flush();
+        try {
+            writeOrderFile(order, fileDir, OrderCodec.forDirectory(fileDir), sync);
+            if (sync) {
+                syncDirectory(fileDir);
+            }
         } catch (IOException e) {
             System.err.println("Error saving order to JSON: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Writes an order to a temp file, optionally syncs it, and atomically renames it to Saved_Order(id)
+     * with the codec's extension. A copy of the order saved in another format is removed.
+     *
+     * @param order         The order to save
+     * @param fileDir       The folder where the order file will be created
+     * @param codec         The format to save the order in
+     * @param sync          true to force the file's contents to disk before the rename
+     * @throws IOException  if the file can't be written or moved
+     */
+    static void writeOrderFile(Order order, File fileDir, OrderCodec codec, boolean sync) throws IOException {
+        String baseName = "Saved_Order" + order.getOrderID();
+        File target = new File(fileDir, baseName + codec.fileExtension());
+        // doesn't end in a codec extension, so a half-written temp file is never loaded as an order
+        File temp = new File(fileDir, target.getName() + ".tmp");
 
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            BufferedOutputStream buffered = new BufferedOutputStream(out);
+            codec.write(order, buffered);
+            buffered.flush();
+            if (sync) {
+                out.getFD().sync();
+            }
+        }
+
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // the directory may have switched formats, don't leave an older copy to be restored as well
+        for (OrderCodec other : new OrderCodec[] {OrderCodec.JSON, OrderCodec.BINARY}) {
+            if (other != codec) {
+                Files.deleteIfExists(new File(fileDir, baseName + other.fileExtension()).toPath());
+            }
+        }
+    }
 
     /**
-     * Saves all orders in the driver to JSON files in the savedOrders directory.
+     * Forces a directory's entries (such as renamed files) to disk.
+     * Not every platform can open a directory for this, in which case it does nothing.
+     *
+     * @param fileDir The directory to sync
+     */
+    static void syncDirectory(File fileDir) {
+        try (FileChannel channel = FileChannel.open(fileDir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows can't open directories as channels; the renames are still atomic there
+        }
+    }
+
+    /**
+     * Saves all orders in the driver to files in the savedOrders directory, in the directory's OrderCodec format.
+     * Each file is synced before it is renamed into place, and the directory is synced once at the end
+     * instead of once per order.
      *
      * @param fileDirectory The directory to save orders to
      */
     public void saveAllOrdersToJSON(String fileDirectory) {
-        for (Order order : orders) {
-            orderExportJSON(order, fileDirectory);
+        File fileDir = new File(fileDirectory);
+        if (!fileDir.exists()) {
+            fileDir.mkdirs();
+        }
+
+        OrderCodec codec = OrderCodec.forDirectory(fileDir);
+        for (Order order : getOrders()) {
+            try {
+                writeOrderFile(order, fileDir, codec, true);
+            } catch (IOException e) {
+                System.err.println("Error saving order to JSON: " + e.getMessage());
+            }
         }
+        syncDirectory(fileDir);
     }
 
     /**
      * Clears all orders from the system.
      */
     public void clearAllOrders() {
-        orders.clear();
-        lastCancelledOrder = null;
+        synchronized (appendLock) {
+            orders = EMPTY;
+            ordersById.clear();
+            indexEntries.clear();
+            for (Status status : Status.values()) {
+                ordersByStatus.get(status).clear();
+                statusCounts.get(status).set(0);
+            }
+            for (Type type : Type.values()) {
+                ordersByType.get(type).clear();
+                typeCounts.get(type).set(0);
+            }
+            lastCancelledOrder = null;
+        }
     }
 
     /**
-     * @return List of all orders
+     * Returns a snapshot of all orders. It is never changed by later adds or clears,
+     * so it can be iterated on any thread without locking.
+     *
+     * @return List of all orders, in the order they were added (read-only)
      */
     public List<Order> getOrders() {
-        return orders;
+        Snapshot current = orders;
+        return Collections.unmodifiableList(Arrays.asList(current.items()).subList(0, current.size()));
+    }
+
+    /**
+     * Looks up an order by its ID.
+     *
+     * @param orderId   The order ID
+     * @return          The order, or null if there is no order with that ID
+     */
+    public Order getOrder(int orderId) {
+        return ordersById.get(orderId);
+    }
+
+    /**
+     * Returns where an order is in getOrders(), without searching the list.
+     *
+     * @param order     The order to find
+     * @return          The order's position, or -1 if it isn't in the driver
+     */
+    public int indexOf(Order order) {
+        IndexEntry entry = indexEntries.get(order);
+        return (entry == null) ? -1 : entry.position;
+    }
+
+    /**
+     * Returns the orders with the given status and type, in the order they were added.
+     * A null status or type matches everything. The cost depends on the size of the smaller
+     * matching bucket, not on the total number of orders.
+     *
+     * @param status    The status to match, or null for any status
+     * @param type      The type to match, or null for any type
+     * @return          The matching orders
+     */
+    public List<Order> getOrders(Status status, Type type) {
+        if (status == null && type == null) {
+            return getOrders();
+        }
+
+        // an order can briefly sit in two status buckets while it moves, so check its current status
+        List<Order> result = new ArrayList<>();
+        if (status != null && (type == null || getOrderCount(status) <= typeCounts.get(type).get())) {
+            for (Order order : ordersByStatus.get(status).values()) {
+                if (order.getStatus() == status && (type == null || order.getType() == type)) {
+                    result.add(order);
+                }
+            }
+        } else {
+            for (Order order : ordersByType.get(type).values()) {
+                if (status == null || order.getStatus() == status) {
+                    result.add(order);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of orders with the given status.
+     *
+     * @param status    The status to count
+     * @return          The number of orders with that status
+     */
+    public int getOrderCount(Status status) {
+        return statusCounts.get(status).get();
     }
 
     /**
@@ -213,10 +548,19 @@ public class OrderDriver {
      * @return          True if the order was successfully cancelled, false otherwise
      */
     public boolean cancelOrderGUI(Order order) {
-        if (order == null || order.getStatus() == Status.completed){
+        if (order == null) {
             return false;
         }
-        order.setStatus(Status.cancelled);
+        synchronized (stripeFor(order)) {
+            Status current;
+            do {
+                current = order.getStatus();
+                if (current == Status.completed) {
+                    return false;
+                }
+            } while (!order.compareAndSetStatus(current, Status.cancelled));
+            refile(order, Status.cancelled);
+        }
         lastCancelledOrder = order;
         notifyOrderChanged(order);
         return true;
@@ -228,8 +572,7 @@ public class OrderDriver {
      */
     public boolean uncancelOrder(Order order) {
         if (order == null) return false;
-        if (order.getStatus() != Status.cancelled) return false;
-        order.setStatus(Status.waiting);
+        if (!transition(order, Status.cancelled, Status.waiting)) return false;
         if (lastCancelledOrder == order) {
             lastCancelledOrder = null;
         }
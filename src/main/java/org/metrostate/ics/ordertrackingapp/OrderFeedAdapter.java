@@ -0,0 +1,60 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the order files of one feed format, such as FoodHub JSON or GrubStop XML.
+ * Adapters are found with ServiceLoader, so a new feed only needs a class that implements this
+ * interface and a provides clause in its module-info (or a META-INF/services entry).
+ * The ParserRegistry picks an adapter for each file by sniffing its first bytes.
+ */
+public interface OrderFeedAdapter {
+    /**
+     * @return The company name given to orders from this feed, such as "FoodHub (JSON)"
+     */
+    String company();
+
+    /**
+     * @return The file extensions this feed uses, lower case and including the dot, such as ".json"
+     */
+    List<String> fileExtensions();
+
+    /**
+     * Tells whether the start of a file looks like this format. Called with at most a few hundred
+     * bytes, so it should only look at the first significant characters.
+     *
+     * @param head      The first bytes of the file
+     * @param length    How many bytes of head were read
+     * @return          true if this adapter can probably read the file
+     */
+    boolean sniff(byte[] head, int length);
+
+    /**
+     * Reads every order in a file, without giving them IDs.
+     *
+     * @param file          The order file
+     * @return              The orders in the file, in file order, with their company set
+     * @throws IOException  if the file can't be read or is not a valid order file
+     */
+    List<Order> read(File file) throws IOException;
+
+    /**
+     * Finds the first byte that isn't whitespace or a UTF-8 byte order mark.
+     *
+     * @param head      The first bytes of a file
+     * @param length    How many bytes of head were read
+     * @return          The index of that byte, or -1 if there is none
+     */
+    static int firstSignificantByte(byte[] head, int length) {
+        int i = 0;
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            i = 3;
+        }
+        while (i < length && (head[i] == ' ' || head[i] == '\t' || head[i] == '\r' || head[i] == '\n')) {
+            i++;
+        }
+        return i < length ? i : -1;
+    }
+}
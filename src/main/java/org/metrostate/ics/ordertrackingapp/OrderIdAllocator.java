@@ -0,0 +1,144 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Hands out unique order IDs from any number of threads.
+ * Taking an ID is a single atomic increment; no lock is taken unless a new block has to be reserved.
+ *
+ * A persistent allocator reserves IDs in blocks: before any ID of a block is handed out, the end
+ * of the block is written to the ID file. After a restart, numbering continues from the end of the last
+ * reserved block, so an ID is never reused even if the application stopped without saving. The IDs left
+ * in that block are skipped.
+ */
+public class OrderIdAllocator implements IntSupplier {
+    public static final String ID_FILE = "order-ids.txt";
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final File idFile;
+    private final int blockSize;
+    private final AtomicInteger next;
+    // IDs below this are reserved and can be handed out without a lock
+    private volatile int limit;
+
+    /**
+     * Creates an allocator that starts at 1 and only lasts for this session.
+     */
+    public OrderIdAllocator() {
+        this.idFile = null;
+        this.blockSize = DEFAULT_BLOCK_SIZE;
+        this.next = new AtomicInteger(1);
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Opens a persistent allocator, continuing after the last block reserved in the ID file.
+     *
+     * @param idFile        The file the reserved blocks are recorded in
+     * @throws IOException  if the ID file exists but can't be read
+     */
+    public OrderIdAllocator(File idFile) throws IOException {
+        this(idFile, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Opens a persistent allocator, continuing after the last block reserved in the ID file.
+     *
+     * @param idFile        The file the reserved blocks are recorded in
+     * @param blockSize     How many IDs are reserved at once
+     * @throws IOException  if the ID file exists but can't be read
+     */
+    public OrderIdAllocator(File idFile, int blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be at least 1");
+        }
+        this.idFile = idFile;
+        this.blockSize = blockSize;
+        int reserved = 1;
+        if (idFile.isFile()) {
+            String text = Files.readString(idFile.toPath(), StandardCharsets.UTF_8).trim();
+            try {
+                reserved = Math.max(1, Integer.parseInt(text));
+            } catch (NumberFormatException e) {
+                throw new IOException(idFile.getName() + " does not hold an order ID: " + text);
+            }
+        }
+        this.next = new AtomicInteger(reserved);
+        this.limit = reserved;
+    }
+
+    /**
+     * Takes the next order ID.
+     *
+     * @return A new, unique order ID
+     */
+    public int next() {
+        int id = next.getAndIncrement();
+        if (id >= limit) {
+            reserveThrough(id);
+        }
+        return id;
+    }
+
+    @Override
+    public int getAsInt() {
+        return next();
+    }
+
+    /**
+     * Makes sure later IDs are greater than the given one, such as the highest ID of the restored orders.
+     *
+     * @param orderId   An ID already in use
+     */
+    public void advancePast(int orderId) {
+        next.accumulateAndGet(orderId + 1, Math::max);
+    }
+
+    /**
+     * @return The ID the next call to next() would return, if no other thread takes one first
+     */
+    public int peek() {
+        return next.get();
+    }
+
+    /**
+     * Reserves a new block that includes the given ID. If the block can't be recorded the ID is still
+     * handed out, so ingest goes on, but it could be reused after a restart.
+     */
+    private synchronized void reserveThrough(int id) {
+        if (id < limit) {
+            // another thread already reserved it
+            return;
+        }
+        int newLimit = (int) Math.min((long) id + blockSize, Integer.MAX_VALUE);
+        try {
+            writeLimit(newLimit);
+        } catch (IOException e) {
+            System.err.println("Error reserving order IDs in " + idFile + ": " + e.getMessage());
+        }
+        limit = newLimit;
+    }
+
+    /**
+     * Writes the end of the reserved block to a temp file, syncs it and moves it over the ID file.
+     */
+    private void writeLimit(int newLimit) throws IOException {
+        File temp = new File(idFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(Integer.toString(newLimit).getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        try {
+            Files.move(temp.toPath(), idFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp.toPath(), idFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
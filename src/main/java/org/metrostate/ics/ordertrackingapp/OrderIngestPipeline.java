@@ -0,0 +1,413 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Parses order files on a bounded pool of worker threads and hands the parsed orders back in batches.
+ * Each file is read by the feed adapter the ParserRegistry picks from its content, and may hold several orders.
+ * Orders are given their IDs in the order the files were submitted, no matter which worker finishes first,
+ * so a bulk load numbers orders the same way a one-by-one load would.
+ * Batches are handed off on a single emitter thread, outside the pipeline's lock, so a slow handler
+ * doesn't hold up the workers finishing their files; batches still arrive one at a time in order.
+ * submit() blocks while too many files are waiting to be parsed or handed off, so a large backlog
+ * can't flood memory.
+ * With a DuplicateOrderDetector, an order that repeats one already seen is reported instead of
+ * being handed off, and doesn't use up an ID.
+ */
+public class OrderIngestPipeline {
+    public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 30_000;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final int QUEUE_PER_WORKER = 16;
+    private static final long MAX_BATCH_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long DRAIN_LOG_INTERVAL_MILLIS = 5_000;
+
+    /**
+     * Receives parsed orders from the pipeline.
+     */
+    public interface BatchHandler {
+        /**
+         * Called with the next batch of results in submission order.
+         * Runs on the pipeline's emitter thread, one batch at a time, so it should hand the work off quickly.
+         *
+         * @param orders        parsed orders with their IDs assigned
+         * @param failedFiles   files that could not be parsed
+         * @param duplicates    files whose order was already seen, and were left out
+         * @param parsedFiles   files that were read, whether their orders were handed off or left out as duplicates
+         */
+        void onBatch(List<Order> orders, List<File> failedFiles, List<Duplicate> duplicates, List<File> parsedFiles);
+    }
+
+    /**
+     * A file whose order repeats one that was already added.
+     *
+     * @param file              The order file
+     * @param originalOrderId   The ID of the order it repeats
+     */
+    public record Duplicate(File file, int originalOrderId) { }
+
+    /**
+     * Result of parsing one file, orders is null if parsing failed.
+     */
+    private record ParseResult(File file, List<Order> orders) { }
+
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService emitter;
+    private final Semaphore capacity;
+    private final BatchHandler handler;
+    private final int batchSize;
+    private final IntSupplier orderIds;
+    private final DuplicateOrderDetector duplicates;
+    private final ParserRegistry parsers;
+
+    // guarded by this
+    private long nextSequence = 0;
+    private long nextToEmit = 0;
+    private final Map<Long, ParseResult> finished = new HashMap<>();
+    private final List<Order> batchOrders = new ArrayList<>();
+    private final List<File> batchFailures = new ArrayList<>();
+    private final List<Duplicate> batchDuplicates = new ArrayList<>();
+    private final List<File> batchParsed = new ArrayList<>();
+    private long batchStartedNanos;
+
+    /**
+     * Creates a pipeline with one worker per available core.
+     *
+     * @param handler receives the parsed orders
+     */
+    public OrderIngestPipeline(BatchHandler handler) {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, handler);
+    }
+
+    /**
+     * Creates a pipeline with one worker per available core that leaves out duplicate orders.
+     *
+     * @param orderIds      supplies the next order ID, such as an OrderIdAllocator
+     * @param duplicates    checks each parsed order and records the ones handed off
+     * @param handler       receives the parsed orders
+     */
+    public OrderIngestPipeline(IntSupplier orderIds, DuplicateOrderDetector duplicates, BatchHandler handler) {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, orderIds, duplicates, handler);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param workerCount   number of parse threads
+     * @param batchSize     maximum number of results handed off at once
+     * @param handler       receives the parsed orders
+     */
+    public OrderIngestPipeline(int workerCount, int batchSize, BatchHandler handler) {
+        this(workerCount, batchSize, Parser::getNextOrderNumber, handler);
+    }
+
+    /**
+     * Creates a pipeline that takes order IDs from the given source instead of the Parser.
+     *
+     * @param workerCount   number of parse threads
+     * @param batchSize     maximum number of results handed off at once
+     * @param orderIds      supplies the next order ID
+     * @param handler       receives the parsed orders
+     */
+    OrderIngestPipeline(int workerCount, int batchSize, IntSupplier orderIds, BatchHandler handler) {
+        this(workerCount, batchSize, orderIds, null, handler);
+    }
+
+    /**
+     * Creates a pipeline that takes order IDs from the given source and leaves out duplicate orders.
+     *
+     * @param workerCount   number of parse threads
+     * @param batchSize     maximum number of results handed off at once
+     * @param orderIds      supplies the next order ID
+     * @param duplicates    checks each parsed order, or null to hand off every order
+     * @param handler       receives the parsed orders
+     */
+    OrderIngestPipeline(int workerCount, int batchSize, IntSupplier orderIds, DuplicateOrderDetector duplicates,
+                        BatchHandler handler) {
+        this(workerCount, batchSize, orderIds, duplicates, ParserRegistry.installed(), handler);
+    }
+
+    /**
+     * Creates a pipeline that reads files with the given feed adapters.
+     *
+     * @param workerCount   number of parse threads
+     * @param batchSize     maximum number of results handed off at once
+     * @param orderIds      supplies the next order ID
+     * @param duplicates    checks each parsed order, or null to hand off every order
+     * @param parsers       picks the adapter for each file
+     * @param handler       receives the parsed orders
+     */
+    OrderIngestPipeline(int workerCount, int batchSize, IntSupplier orderIds, DuplicateOrderDetector duplicates,
+                        ParserRegistry parsers, BatchHandler handler) {
+        if (workerCount < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("workerCount and batchSize must be at least 1");
+        }
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.orderIds = orderIds;
+        this.duplicates = duplicates;
+        this.parsers = parsers;
+
+        // one permit per file from submit() until its batch is handed off; the queue can hold every permit,
+        // so execute() never has to reject even while a worker is between tasks
+        int maxPending = workerCount * QUEUE_PER_WORKER;
+        this.capacity = new Semaphore(maxPending);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPending), r -> {
+                    Thread t = new Thread(r, "order-parse-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.emitter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "order-ingest-emit");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues a file to be parsed, waiting if the queue is full.
+     *
+     * @param file  order file to parse
+     * @return      true if the file was queued, false if interrupted or shut down
+     */
+    public boolean submit(File file) {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        long sequence;
+        synchronized (this) {
+            sequence = nextSequence++;
+        }
+
+        try {
+            workers.execute(() -> parse(sequence, file));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // shut down, report the file as failed so later results aren't held back
+            finish(sequence, new ParseResult(file, null));
+            return false;
+        }
+    }
+
+    /**
+     * Queues several files, in iteration order.
+     *
+     * @param files order files to parse
+     */
+    public void submitAll(Collection<File> files) {
+        for (File file : files) {
+            if (!submit(file)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting files and waits for every queued file to be parsed and handed off,
+     * for up to DEFAULT_DRAIN_TIMEOUT_MILLIS.
+     */
+    public void shutdown() {
+        shutdown(DEFAULT_DRAIN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Stops accepting files and waits for every queued file to be parsed and handed off.
+     * Files still queued when the time runs out, or when the waiting thread is interrupted,
+     * are dropped and logged, so a stuck parser or handler can't keep the application from closing.
+     *
+     * @param timeoutMillis How long to wait for the queue to drain
+     */
+    public void shutdown(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        workers.shutdown();
+        try {
+            if (!awaitDrained(workers, deadline, "parsed")) {
+                int dropped = workers.shutdownNow().size();
+                System.err.println("Shutting down with " + dropped + " order file(s) not parsed yet, dropped");
+            }
+            // the workers queued their last batches before they stopped
+            emitter.shutdown();
+            if (!awaitDrained(emitter, deadline, "handed off")) {
+                dropEmits();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            dropEmits();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a shut down executor to finish its tasks, logging while it takes long.
+     *
+     * @return true if it finished before the deadline
+     */
+    private static boolean awaitDrained(ExecutorService executor, long deadline, String what)
+            throws InterruptedException {
+        while (true) {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (executor.awaitTermination(Math.max(0, Math.min(left, DRAIN_LOG_INTERVAL_MILLIS)), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            if (left <= DRAIN_LOG_INTERVAL_MILLIS) {
+                return false;
+            }
+            System.err.println("Still waiting for queued order files to be " + what);
+        }
+    }
+
+    /**
+     * Stops the emitter and logs the batches it never handed off.
+     */
+    private void dropEmits() {
+        int files = 0;
+        int orders = 0;
+        for (Runnable task : emitter.shutdownNow()) {
+            if (task instanceof Emit emit) {
+                files += emit.files;
+                orders += emit.orders.size();
+            }
+        }
+        if (files > 0) {
+            System.err.println("Shutting down with " + orders + " order(s) from " + files
+                    + " file(s) not handed off yet, dropped");
+        }
+    }
+
+    /**
+     * Worker task: parses a file without assigning IDs.
+     */
+    private void parse(long sequence, File file) {
+        List<Order> orders = null;
+        try {
+            orders = parsers.parse(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error parsing order file " + file.getName() + ": " + e.getMessage());
+        }
+        finish(sequence, new ParseResult(file, orders));
+    }
+
+    /**
+     * Records a result and releases every result that is now next in submission order.
+     * IDs are assigned here, under the lock, so they follow submission order.
+     */
+    private synchronized void finish(long sequence, ParseResult result) {
+        finished.put(sequence, result);
+
+        ParseResult next;
+        while ((next = finished.remove(nextToEmit)) != null) {
+            nextToEmit++;
+            if (batchSize() == 0) {
+                batchStartedNanos = System.nanoTime();
+            }
+            if (next.orders() == null) {
+                batchFailures.add(next.file());
+            } else {
+                batchParsed.add(next.file());
+                for (Order order : next.orders()) {
+                    int originalId = (duplicates == null) ? -1 : duplicates.findDuplicate(order);
+                    if (originalId >= 0) {
+                        batchDuplicates.add(new Duplicate(next.file(), originalId));
+                    } else {
+                        order.setOrderID(orderIds.getAsInt());
+                        if (duplicates != null) {
+                            duplicates.record(order);
+                        }
+                        batchOrders.add(order);
+                    }
+                }
+            }
+            if (batchSize() >= batchSize) {
+                flushBatch();
+            }
+        }
+
+        // hand off what we have once nothing else is in flight, or if the batch has waited long enough
+        boolean idle = nextToEmit == nextSequence;
+        if (idle || System.nanoTime() - batchStartedNanos >= MAX_BATCH_DELAY_NANOS) {
+            flushBatch();
+        }
+    }
+
+    private int batchSize() {
+        return batchOrders.size() + batchFailures.size() + batchDuplicates.size();
+    }
+
+    /**
+     * Copies the batch and queues it on the emitter, which calls the handler outside the lock.
+     */
+    private void flushBatch() {
+        // a file without orders still has to be handed off, so it can be marked as processed
+        if (batchSize() == 0 && batchParsed.isEmpty()) {
+            return;
+        }
+        List<Order> orders = new ArrayList<>(batchOrders);
+        List<File> failures = new ArrayList<>(batchFailures);
+        List<Duplicate> repeated = new ArrayList<>(batchDuplicates);
+        List<File> parsed = new ArrayList<>(batchParsed);
+        batchOrders.clear();
+        batchFailures.clear();
+        batchDuplicates.clear();
+        batchParsed.clear();
+        // every file is either parsed or failed, and holds one permit until it is handed off
+        int files = failures.size() + parsed.size();
+        try {
+            emitter.execute(new Emit(orders, failures, repeated, parsed, files));
+        } catch (RejectedExecutionException e) {
+            capacity.release(files);
+            System.err.println("Error handing off parsed orders: pipeline is shut down");
+        }
+    }
+
+    /**
+     * Emitter task: calls the handler, then lets submit() queue as many files as were handed off.
+     * A class rather than a lambda so shutdown can tell what a dropped batch held.
+     */
+    private final class Emit implements Runnable {
+        private final List<Order> orders;
+        private final List<File> failures;
+        private final List<Duplicate> repeated;
+        private final List<File> parsed;
+        private final int files;
+
+        private Emit(List<Order> orders, List<File> failures, List<Duplicate> repeated, List<File> parsed, int files) {
+            this.orders = orders;
+            this.failures = failures;
+            this.repeated = repeated;
+            this.parsed = parsed;
+            this.files = files;
+        }
+
+        @Override
+        public void run() {
+            try {
+                handler.onBatch(orders, failures, repeated, parsed);
+            } catch (RuntimeException e) {
+                System.err.println("Error handing off parsed orders: " + e.getMessage());
+            } finally {
+                capacity.release(files);
+            }
+        }
+    }
+}
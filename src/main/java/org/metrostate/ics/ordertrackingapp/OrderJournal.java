@@ -0,0 +1,393 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of order changes, stored as orders.journal in the saved orders directory.
+ * A new order is written once as a created record and every later status change as a small
+ * status record, so saving is a sequential append instead of rewriting a file per order.
+ * Once the journal has enough records it is compacted: the state of every order is written to a
+ * binary snapshot (orders.snapshot, see OrderSnapshot) and the journal starts over empty.
+ *
+ * Opening a journal loads the snapshot and then replays the journal on top of it. A record that was only partly written when the application
+ * stopped (or whose checksum doesn't match) ends the replay, and the file is cut back to the
+ * last good record so new records aren't appended after it.
+ *
+ * File layout: a header (magic, version) followed by records of
+ * [int length][length bytes of body][int CRC32 of body]. The body is
+ * [byte kind][int orderId] and then, for a created record,
+ * [long date][double totalPrice][byte type][byte status][boolean hasCompany][UTF company]
+ * [int itemCount] and per item [UTF name][int quantity][double price];
+ * and for a status record [byte status].
+ * Type and status are stored by ordinal (-1 for null), so new constants must be added at the end.
+ */
+public class OrderJournal implements OrderPersistence.Sink {
+    public static final String JOURNAL_FILE = "orders.journal";
+    public static final String SNAPSHOT_FILE = OrderSnapshot.SNAPSHOT_FILE;
+    public static final int DEFAULT_COMPACT_THRESHOLD = 10_000;
+
+    private static final int MAGIC = 0x4F4A4E4C; // "OJNL"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final byte CREATED = 1;
+    private static final byte STATUS = 2;
+
+    private final File journalFile;
+    private final File snapshotFile;
+    private final int compactThreshold;
+    // every order the journal knows about, in the order they were created
+    private final Map<Integer, Order> orders = new LinkedHashMap<>();
+    // the status each order has in the journal, to tell which changes still need a record
+    private final Map<Integer, Status> journaledStatus = new HashMap<>();
+    private final List<Order> recoveredOrders;
+    private int recordCount = 0;
+
+    private DataOutputStream out;
+    // the file under out, kept to sync it
+    private FileOutputStream fileOut;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Opens the journal in a directory, replaying it if it exists.
+     *
+     * @param directory     The saved orders directory
+     * @throws IOException  if the journal can't be read or created
+     */
+    public OrderJournal(File directory) throws IOException {
+        this(directory, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Opens the journal in a directory, replaying it if it exists.
+     *
+     * @param directory         The saved orders directory
+     * @param compactThreshold  Number of journal records after which the journal is compacted
+     * @throws IOException      if the journal can't be read or created
+     */
+    public OrderJournal(File directory, int compactThreshold) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+        this.compactThreshold = compactThreshold;
+        recover();
+        this.recoveredOrders = List.copyOf(orders.values());
+    }
+
+    /**
+     * @return The orders replayed from the journal when it was opened, in the order they were created
+     */
+    public List<Order> getRecoveredOrders() {
+        return recoveredOrders;
+    }
+
+    /**
+     * Records a new order, or a status change for an order the journal already has.
+     * Does nothing if the journal already has the order in its current status.
+     *
+     * @param order         The order to record
+     * @throws IOException  if the record can't be written
+     */
+    @Override
+    public void write(Order order) throws IOException {
+        int orderId = order.getOrderID();
+        Status status = order.getStatus();
+        if (!journaledStatus.containsKey(orderId)) {
+            writeCreated(order, status);
+            orders.put(orderId, order);
+        } else if (journaledStatus.get(orderId) != status) {
+            beginRecord(STATUS, orderId);
+            bodyOut.writeByte(code(status));
+            endRecord();
+        } else {
+            return;
+        }
+        journaledStatus.put(orderId, status);
+    }
+
+    /**
+     * Pushes buffered records to the file and syncs it to the disk, once for the whole batch,
+     * then compacts the journal if it has grown large.
+     */
+    @Override
+    public void endBatch() throws IOException {
+        if (out != null) {
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (recordCount >= compactThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Forgets all orders, leaving an empty journal.
+     */
+    @Override
+    public void clear() throws IOException {
+        orders.clear();
+        journaledStatus.clear();
+        // writes an empty snapshot and an empty journal
+        compact();
+    }
+
+    /**
+     * Compacts the journal and closes the file. A later write reopens it.
+     */
+    @Override
+    public void close() throws IOException {
+        compact();
+        if (out != null) {
+            out.close();
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    /**
+     * Writes every order with its current status to the snapshot and starts an empty journal.
+     * The snapshot replaces the old one atomically before the journal is emptied, so after a crash
+     * at any point the snapshot plus the journal still hold every change.
+     *
+     * @throws IOException  if the snapshot can't be written
+     */
+    public void compact() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            fileOut = null;
+        }
+
+        List<Order> current = new ArrayList<>(orders.values());
+        List<Status> statuses = new ArrayList<>(current.size());
+        for (Order order : current) {
+            statuses.add(order.getStatus());
+        }
+        // returns once the snapshot and its directory entry are synced, so emptying the journal is safe
+        OrderSnapshot.write(snapshotFile, current, statuses);
+        for (int i = 0; i < current.size(); i++) {
+            journaledStatus.put(current.get(i).getOrderID(), statuses.get(i));
+        }
+
+        // everything is in the snapshot, so the journal starts over with just a header
+        fileOut = new FileOutputStream(journalFile);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        writeHeader();
+        out.flush();
+        fileOut.getFD().sync();
+        recordCount = 0;
+    }
+
+    /**
+     * Loads the snapshot, replays the journal on top of it and cuts off a damaged tail.
+     */
+    private void recover() throws IOException {
+        if (snapshotFile.exists()) {
+            try {
+                for (Order order : OrderSnapshot.read(snapshotFile)) {
+                    orders.put(order.getOrderID(), order);
+                    journaledStatus.put(order.getOrderID(), order.getStatus());
+                }
+            } catch (IOException e) {
+                orders.clear();
+                journaledStatus.clear();
+                setAside(snapshotFile, e.getMessage());
+            }
+        }
+        if (!journalFile.exists() || journalFile.length() == 0) {
+            return;
+        }
+
+        long goodLength = 0;
+        String unreadable = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                unreadable = "it is not a version " + VERSION + " order journal";
+            } else {
+                goodLength = HEADER_SIZE + replay(in);
+            }
+        } catch (EOFException e) {
+            unreadable = "its header is incomplete";
+        }
+        if (unreadable != null) {
+            setAside(journalFile, unreadable);
+            return;
+        }
+
+        if (goodLength < journalFile.length()) {
+            System.err.println("Order journal ends with a damaged record, keeping the first " + goodLength + " bytes");
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(goodLength);
+            }
+        }
+    }
+
+    /**
+     * Applies records until the end of the journal or the first damaged record.
+     *
+     * @return  The number of bytes of good records
+     */
+    private long replay(DataInputStream in) throws IOException {
+        long replayed = 0;
+        byte[] record = new byte[256];
+        while (true) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                if (length < 5 || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                in.readFully(record, 0, length);
+                checksum = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(record, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(new DataInputStream(new ByteArrayInputStream(record, 0, length)));
+            recordCount++;
+            replayed += 8 + length;
+        }
+        return replayed;
+    }
+
+    /**
+     * Applies one record to the orders map.
+     */
+    private void apply(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        int orderId = in.readInt();
+        switch (kind) {
+            case CREATED -> {
+                long date = in.readLong();
+                double totalPrice = in.readDouble();
+                Type type = decode(Type.values(), in.readByte());
+                Status status = decode(Status.values(), in.readByte());
+                String company = in.readBoolean() ? in.readUTF() : null;
+                int itemCount = in.readInt();
+                List<FoodItem> foodList = new ArrayList<>(itemCount);
+                for (int i = 0; i < itemCount; i++) {
+                    foodList.add(new FoodItem(in.readUTF(), in.readInt(), in.readDouble()));
+                }
+                Order order = new Order(orderId, date, totalPrice, type, status, foodList);
+                order.setCompany(Parser.restoredCompany(company));
+                orders.put(orderId, order);
+                journaledStatus.put(orderId, status);
+            }
+            case STATUS -> {
+                Status status = decode(Status.values(), in.readByte());
+                Order order = orders.get(orderId);
+                if (order != null) {
+                    order.setStatus(status);
+                    journaledStatus.put(orderId, status);
+                }
+            }
+            default -> System.err.println("Skipping unknown order journal record " + kind);
+        }
+    }
+
+    /**
+     * Moves an unreadable journal or snapshot out of the way so a new one can be started.
+     */
+    private static void setAside(File file, String reason) throws IOException {
+        File aside = new File(file.getPath() + ".corrupt-" + System.currentTimeMillis());
+        System.err.println(file.getName() + " can't be read because " + reason + ", moving it to " + aside.getName());
+        Files.move(file.toPath(), aside.toPath());
+    }
+
+    private void writeCreated(Order order, Status status) throws IOException {
+        beginRecord(CREATED, order.getOrderID());
+        bodyOut.writeLong(order.getDate());
+        bodyOut.writeDouble(order.getTotalPrice());
+        bodyOut.writeByte(code(order.getType()));
+        bodyOut.writeByte(code(status));
+        String company = order.getCompany();
+        bodyOut.writeBoolean(company != null);
+        if (company != null) {
+            bodyOut.writeUTF(company);
+        }
+        List<FoodItem> foodList = order.getFoodList();
+        bodyOut.writeInt(foodList.size());
+        for (FoodItem item : foodList) {
+            bodyOut.writeUTF(item.getName() == null ? "" : item.getName());
+            bodyOut.writeInt(item.getQuantity());
+            bodyOut.writeDouble(item.getPrice());
+        }
+        endRecord();
+    }
+
+    private void beginRecord(byte kind, int orderId) throws IOException {
+        body.reset();
+        bodyOut.writeByte(kind);
+        bodyOut.writeInt(orderId);
+    }
+
+    /**
+     * Frames the record body with its length and checksum and appends it.
+     */
+    private void endRecord() throws IOException {
+        if (out == null) {
+            openForAppend();
+        }
+        byte[] bytes = body.toByteArray();
+        crc.reset();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+        recordCount++;
+    }
+
+    private void openForAppend() throws IOException {
+        boolean fresh = !journalFile.exists() || journalFile.length() == 0;
+        fileOut = new FileOutputStream(journalFile, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        if (fresh) {
+            writeHeader();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    private static byte code(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E decode(E[] values, byte code) {
+        return (code >= 0 && code < values.length) ? values[code] : null;
+    }
+}
@@ -1,28 +1,72 @@
 package org.metrostate.ics.ordertrackingapp;
 
-import javafx.application.Platform;
-
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
  * <a href="https://docs.oracle.com/javase/tutorial/essential/io/notification.html">...</a>
- * Monitors a directory for new order files (JSON and XML) using multithreading.
+ * Monitors a directory for new order files (any extension an installed OrderFeedAdapter reads) using multithreading.
  * When a new file is detected, it notifies the registered listener.
+ * Callbacks run on the listener's own threads, not the JavaFX thread.
+ *
+ * Watch events don't say when a file is finished, and one file can raise several
+ * create/modify events while it's written. Each event (re)starts a short settle timer for its
+ * path; when the timer fires the file's size and modified time are compared with the previous
+ * check, and the file is handed to the callback once they stop changing. The watch thread itself
+ * never sleeps, so a burst of files settles in parallel instead of one after another.
+ *
+ * If the OS drops events (OVERFLOW) the directory is rescanned and every order file that isn't
+ * already processed or settling is picked up. A periodic sweep does the same as a safety net;
+ * it skips the listing while the directory's modified time hasn't changed.
+ *
+ * Every file is claimed in a ProcessedFileIndex (file name plus content hash) before it is
+ * handed off, so a file is only handed off once per session. The listener never marks files as
+ * processed; the caller does that once a file's orders are saved, so with a persistent index a file
+ * is skipped after a restart only if its orders made it to disk.
  */
 public class OrderListener implements Runnable {
+    public static final long DEFAULT_SETTLE_MILLIS = 15;
+    public static final long DEFAULT_SWEEP_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    // directory times can be this coarse, so a sweep only trusts an unchanged time older than this
+    private static final long DIRECTORY_TIME_GRANULARITY_MILLIS = 2000;
+    // a file still changing after this long is handed off anyway, the parser will report it if it's incomplete
+    private static final long MAX_SETTLE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
     private final Path directoryPath;
     private final OrderFileCallback callback;
     private final ExecutorService executorService;
+    private final ScheduledExecutorService settleTimer;
+    private final long settleMillis;
+    private final long sweepMillis;
+    // directory modified time seen by the last sweep that listed the directory, only used on the settle thread
+    private long sweptDirectoryMillis = -1;
     private volatile boolean running = true;
-    private final Set<String> processedFiles;
+    private final ProcessedFileIndex processedFiles;
+    // guarded by this
+    private final Map<Path, PendingFile> pendingFiles = new HashMap<>();
+
+    /**
+     * A file that raised an event and hasn't settled yet.
+     */
+    private static final class PendingFile {
+        private final long firstSeenMillis = System.currentTimeMillis();
+        private ScheduledFuture<?> timer;
+        private long size = -1;
+        private long modifiedMillis = -1;
+    }
 
     /**
      * Interface for callbacks when new order files are detected
@@ -30,6 +74,17 @@ public class OrderListener implements Runnable {
      */
     public interface OrderFileCallback {
         void onNewOrderFile(File file);
+
+        /**
+         * Called once with every order file already in the directory when monitoring starts.
+         *
+         * @param files existing order files, sorted by name
+         */
+        default void onNewOrderFiles(List<File> files) {
+            for (File file : files) {
+                onNewOrderFile(file);
+            }
+        }
     }
 
     /**
@@ -39,55 +94,226 @@ public class OrderListener implements Runnable {
      * @param callback The callback to invoke when new files are detected
      */
     public OrderListener(String directoryPath, OrderFileCallback callback) {
+        this(directoryPath, callback, DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * Creates a new OrderListener for the specified directory
+     *
+     * @param directoryPath The path to the directory to monitor
+     * @param callback      The callback to invoke when new files are detected
+     * @param settleMillis  How long a file's size and modified time must stay the same before it is handed off
+     */
+    public OrderListener(String directoryPath, OrderFileCallback callback, long settleMillis) {
+        this(directoryPath, callback, settleMillis, DEFAULT_SWEEP_MILLIS);
+    }
+
+    /**
+     * Creates a new OrderListener for the specified directory
+     *
+     * @param directoryPath The path to the directory to monitor
+     * @param callback      The callback to invoke when new files are detected
+     * @param settleMillis  How long a file's size and modified time must stay the same before it is handed off
+     * @param sweepMillis   How often the directory is checked for files the watch service missed
+     */
+    public OrderListener(String directoryPath, OrderFileCallback callback, long settleMillis, long sweepMillis) {
+        this(directoryPath, callback, settleMillis, sweepMillis, new ProcessedFileIndex());
+    }
+
+    /**
+     * Creates a new OrderListener for the specified directory
+     *
+     * @param directoryPath     The path to the directory to monitor
+     * @param callback          The callback to invoke when new files are detected
+     * @param processedFiles    The files already ingested; files are claimed in it as they are handed off
+     */
+    public OrderListener(String directoryPath, OrderFileCallback callback, ProcessedFileIndex processedFiles) {
+        this(directoryPath, callback, DEFAULT_SETTLE_MILLIS, DEFAULT_SWEEP_MILLIS, processedFiles);
+    }
+
+    /**
+     * Creates a new OrderListener for the specified directory
+     *
+     * @param directoryPath     The path to the directory to monitor
+     * @param callback          The callback to invoke when new files are detected
+     * @param settleMillis      How long a file's size and modified time must stay the same before it is handed off
+     * @param sweepMillis       How often the directory is checked for files the watch service missed
+     * @param processedFiles    The files already ingested; files are claimed in it as they are handed off
+     */
+    public OrderListener(String directoryPath, OrderFileCallback callback, long settleMillis, long sweepMillis,
+                         ProcessedFileIndex processedFiles) {
         this.directoryPath = Paths.get(directoryPath);
         this.callback = callback;
+        this.settleMillis = settleMillis;
+        this.sweepMillis = sweepMillis;
+        this.processedFiles = processedFiles;
         this.executorService = Executors.newSingleThreadExecutor();
-        this.processedFiles = new HashSet<>();
+        this.settleTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-listener-settle");
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
-        loadExistingFiles();
+    /**
+     * (Re)starts the settle timer for a file that raised a watch event.
+     *
+     * @param path  The file that was created or modified
+     */
+    private void fileChanged(Path path) {
+        if (processedFiles.isKnown(path)) {
+            return;
+        }
+        synchronized (this) {
+            PendingFile pending = pendingFiles.computeIfAbsent(path, p -> new PendingFile());
+            if (pending.timer != null) {
+                pending.timer.cancel(false);
+            }
+            pending.timer = settleTimer.schedule(() -> checkSettled(path), settleMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
-     * Attempts to open a file to ensure it is fully written and readable.
-     * Tries up to 5 times, sleeping between attempts.
-     * Returns true when the file could be opened and closed successfully.
+     * Starts settling a file found by a rescan, unless it is already processed or settling.
+     * Unlike a watch event this doesn't restart a timer that is already running.
+     *
+     * @param path  The order file
+     * @return      true if the file was new to the listener
      */
-    private boolean waitForFileReadable(File file, long baseSleepMillis) {
-        for (int attempt = 1; attempt <= 5; attempt++) {
-            try (FileInputStream fis = new FileInputStream(file)) {
-                // able to open the file for reading -> consider it ready
-                return true;
-            } catch (IOException e) {
-                if (attempt == 5) break;
-                try {
-                    Thread.sleep(baseSleepMillis * attempt);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    return false;
+    private boolean fileFound(Path path) {
+        if (processedFiles.isKnown(path)) {
+            return false;
+        }
+        synchronized (this) {
+            if (pendingFiles.containsKey(path)) {
+                return false;
+            }
+            PendingFile pending = new PendingFile();
+            pending.timer = settleTimer.schedule(() -> checkSettled(path), settleMillis, TimeUnit.MILLISECONDS);
+            pendingFiles.put(path, pending);
+            return true;
+        }
+    }
+
+    /**
+     * Lists the directory and starts settling every order file the listener hasn't seen.
+     * Files confirmed this session only cost a stat, so this is cheap even with many processed files.
+     *
+     * @return The number of missed files found
+     */
+    int rescan() {
+        int found = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directoryPath, OrderListener::isOrderFile)) {
+            for (Path path : files) {
+                if (fileFound(path)) {
+                    found++;
                 }
             }
+        } catch (IOException | DirectoryIteratorException e) {
+            System.err.println("Error rescanning " + directoryPath + ": " + e.getMessage());
+        }
+        return found;
+    }
+
+    /**
+     * Tells whether a file has an extension one of the installed feed adapters reads.
+     */
+    private static boolean isOrderFile(Path path) {
+        return ParserRegistry.installed().isOrderFile(path.getFileName().toString());
+    }
+
+    /**
+     * Periodic safety-net sweep. Skips listing the directory when its modified time shows nothing was added.
+     */
+    private void sweep() {
+        if (!running) {
+            return;
+        }
+        long startedMillis = System.currentTimeMillis();
+        long directoryMillis;
+        try {
+            directoryMillis = Files.getLastModifiedTime(directoryPath).toMillis();
+        } catch (IOException e) {
+            return;
+        }
+        if (directoryMillis == sweptDirectoryMillis
+                && startedMillis - directoryMillis > DIRECTORY_TIME_GRANULARITY_MILLIS) {
+            return;
+        }
+        processedFiles.evictExpired();
+        int found = rescan();
+        if (found > 0) {
+            System.err.println("Order listener sweep picked up " + found + " file(s) the watch service hadn't reported");
+        }
+        sweptDirectoryMillis = directoryMillis;
+    }
+
+    /**
+     * Settle timer task: hands the file off if its size and modified time haven't changed since the last check,
+     * otherwise checks again after another settle delay.
+     *
+     * @param path  The file to check
+     */
+    private void checkSettled(Path path) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // deleted or renamed away before it settled
+            synchronized (this) {
+                pendingFiles.remove(path);
+            }
+            return;
+        }
+
+        long size = attributes.size();
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+        boolean settled;
+        synchronized (this) {
+            PendingFile pending = pendingFiles.get(path);
+            if (pending == null) {
+                return;
+            }
+            boolean unchanged = size > 0 && size == pending.size && modifiedMillis == pending.modifiedMillis;
+            settled = unchanged || System.currentTimeMillis() - pending.firstSeenMillis > MAX_SETTLE_MILLIS;
+            if (settled) {
+                pendingFiles.remove(path);
+            } else {
+                pending.size = size;
+                pending.modifiedMillis = modifiedMillis;
+                pending.timer = settleTimer.schedule(() -> checkSettled(path), settleMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (settled && running && processedFiles.claim(path)) {
+            callback.onNewOrderFile(path.toFile());
         }
-        return false;
     }
 
     /**
      * Loads existing files in the directory on startup.
+     * The whole backlog is handed to the callback at once, in name order, so it can be parsed in bulk.
+     * These files were written before startup, so they aren't probed for readability one by one.
+     * Files already in the processed index are skipped. Files whose orders weren't saved before the
+     * last run stopped aren't in it, so they are ingested again.
      */
     private void loadExistingFiles() {
         File directory = directoryPath.toFile();
         if (directory.exists() && directory.isDirectory()) {
-            File[] files = directory.listFiles((dir, name) ->
-                name.toLowerCase().endsWith(".json") || name.toLowerCase().endsWith(".xml"));
+            File[] files = directory.listFiles((dir, name) -> ParserRegistry.installed().isOrderFile(name));
 
-            if (files != null) {
+            if (files != null && files.length > 0) {
+                Arrays.sort(files, Comparator.comparing(File::getName));
+                List<File> newFiles = new ArrayList<>(files.length);
                 for (File file : files) {
-                    // wait for the file to be readable before notifying
-                    if (waitForFileReadable(file, 100)) {
-                        processedFiles.add(file.getName());
-                        // notify callback for existing files to populate GUI
-                        Platform.runLater(() -> callback.onNewOrderFile(file));
+                    if (processedFiles.claim(file.toPath())) {
+                        newFiles.add(file);
                     }
                 }
+                if (!newFiles.isEmpty()) {
+                    // notify callback for existing files to populate GUI
+                    callback.onNewOrderFiles(newFiles);
+                }
             }
         }
     }
@@ -105,6 +331,7 @@ public class OrderListener implements Runnable {
      */
     public void stop() {
         running = false;
+        settleTimer.shutdownNow();
         executorService.shutdown();
         try {
             // wait for the background thread to stop
@@ -130,6 +357,10 @@ public class OrderListener implements Runnable {
                 StandardWatchEventKinds.ENTRY_CREATE,
                 StandardWatchEventKinds.ENTRY_MODIFY);
 
+            // registered first so files dropped while the backlog loads still raise events
+            loadExistingFiles();
+            settleTimer.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+
             while (running) {
                 WatchKey key;
                 try {
@@ -139,42 +370,30 @@ public class OrderListener implements Runnable {
                     break;
                 }
 
+                boolean overflowed = false;
                 for (WatchEvent<?> event : key.pollEvents()) {
                     WatchEvent.Kind<?> kind = event.kind();
 
                     if (kind == StandardWatchEventKinds.OVERFLOW) {
+                        // events were dropped, rescan once after this batch
+                        overflowed = true;
                         continue;
                     }
 
                     @SuppressWarnings("unchecked")
                     WatchEvent<Path> ev = (WatchEvent<Path>) event;
                     Path filename = ev.context();
-                    String fileName = filename.toString();
-
-                    if (fileName.toLowerCase().endsWith(".json") ||
-                        fileName.toLowerCase().endsWith(".xml")) {
 
-                        File newFile = directoryPath.resolve(filename).toFile();
-
-                        try {
-                            Thread.sleep(100);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-
-                        // wait until the file is readable (not locked)
-                        boolean ready = waitForFileReadable(newFile, 200);
-                        if (!ready) {
-                            continue;
-                        }
-
-                        if (!processedFiles.contains(fileName)) {
-                            processedFiles.add(fileName);
-                            Platform.runLater(() -> callback.onNewOrderFile(newFile));
-                        }
+                    if (isOrderFile(filename)) {
+                        // handed off once the file stops changing
+                        fileChanged(directoryPath.resolve(filename));
                     }
                 }
 
+                if (overflowed) {
+                    rescan();
+                }
+
                 boolean valid = key.reset();
                 if (!valid) {
                     break;
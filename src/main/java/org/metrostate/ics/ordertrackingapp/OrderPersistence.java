@@ -0,0 +1,260 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves orders to disk in the background (write-behind).
+ * save() only records that an order needs writing; a dedicated I/O thread writes the pending
+ * orders every flush interval. Pending saves are keyed by order ID, so an order that changes
+ * several times between flushes is only written once, with its latest state.
+ * shutdown() writes everything still pending before it returns.
+ */
+public class OrderPersistence {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 250;
+
+    /**
+     * Where orders are written. Only ever called from one thread at a time.
+     */
+    public interface Sink {
+        /**
+         * Writes the current state of one order.
+         *
+         * @param order         The order to write
+         * @throws IOException  if the order could not be written
+         */
+        void write(Order order) throws IOException;
+
+        /**
+         * Called after each flush that wrote at least one order.
+         *
+         * @throws IOException  if buffered writes could not be completed
+         */
+        default void endBatch() throws IOException { }
+
+        /**
+         * Forgets every order written so far, because the orders were cleared.
+         *
+         * @throws IOException  if the clear could not be recorded
+         */
+        default void clear() throws IOException { }
+
+        /**
+         * Called once by shutdown, after the last flush.
+         *
+         * @throws IOException  if the sink could not be closed cleanly
+         */
+        default void close() throws IOException { }
+    }
+
+    private final Sink sink;
+    // sorted by ID so new orders are written in the order they were numbered
+    private final Map<Integer, Order> pending = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService ioThread;
+    private volatile boolean stopped = false;
+    // guarded by this
+    private boolean clearRequested = false;
+
+    /**
+     * Creates a service that saves orders to a directory with the default flush interval.
+     *
+     * @param fileDirectory The folder the order files are written to
+     */
+    public OrderPersistence(String fileDirectory) {
+        this(fileDirectory, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a service that saves orders to a directory.
+     * Each order file is synced before it is moved into place and the directory is synced after each flush,
+     * so once sync() returns true the orders are on disk.
+     *
+     * @param fileDirectory         The folder the order files are written to
+     * @param flushIntervalMillis   How long changes are collected before they are written
+     */
+    public OrderPersistence(String fileDirectory, long flushIntervalMillis) {
+        this(flushIntervalMillis, directorySink(new File(fileDirectory)));
+    }
+
+    /**
+     * Creates a service that hands orders to the given sink on the I/O thread.
+     *
+     * @param flushIntervalMillis   How long changes are collected before they are written
+     * @param sink                  Writes the orders
+     */
+    public OrderPersistence(long flushIntervalMillis, Sink sink) {
+        if (flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("flushIntervalMillis must be at least 1");
+        }
+        this.sink = sink;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "order-persistence");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.ioThread = executor;
+        ioThread.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes each order to its own file in the directory's OrderCodec format.
+     * Unlike OrderDriver.orderExportJSON, a failed write throws, so the order stays pending.
+     *
+     * @param fileDir   The folder the order files are written to
+     * @return          A sink writing to that folder
+     */
+    private static Sink directorySink(File fileDir) {
+        return new Sink() {
+            @Override
+            public void write(Order order) throws IOException {
+                if (!fileDir.isDirectory() && !fileDir.mkdirs()) {
+                    throw new IOException("can't create " + fileDir);
+                }
+                OrderDriver.writeOrderFile(order, fileDir, OrderCodec.forDirectory(fileDir), true);
+            }
+
+            @Override
+            public void endBatch() {
+                // once per flush, so the renames of the whole batch are durable
+                OrderDriver.syncDirectory(fileDir);
+            }
+        };
+    }
+
+    /**
+     * Marks an order to be written on the next flush, replacing any save of the same order still waiting.
+     * After shutdown the order is written right away on the calling thread instead.
+     *
+     * @param order The order to save
+     */
+    public void save(Order order) {
+        if (order == null) return;
+        pending.put(order.getOrderID(), order);
+        if (stopped) {
+            flush();
+        }
+    }
+
+    /**
+     * Marks several orders to be written on the next flush.
+     *
+     * @param orders The orders to save
+     */
+    public void saveAll(Iterable<Order> orders) {
+        for (Order order : orders) {
+            save(order);
+        }
+    }
+
+    /**
+     * Drops every pending save and tells the sink the orders were cleared.
+     * Orders saved after this call are written after the clear.
+     */
+    public void clear() {
+        // waits for a flush in progress, so nothing from before the clear is written after it
+        synchronized (this) {
+            pending.clear();
+            clearRequested = true;
+        }
+        if (stopped) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every pending order now, on the calling thread, instead of waiting for the next flush.
+     * Returns once the sink has finished the batch, so with the journal or an order directory the orders are on disk.
+     *
+     * @return true if every pending order was written, false if any write failed and is still pending
+     */
+    public boolean sync() {
+        return flush();
+    }
+
+    /**
+     * @return The number of orders waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the I/O thread and writes every order still pending before returning.
+     */
+    public void shutdown() {
+        stopped = true;
+        ioThread.shutdown();
+        try {
+            // let a flush that is already running finish so files aren't written twice at once
+            if (!ioThread.awaitTermination(5, TimeUnit.SECONDS)) {
+                ioThread.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            ioThread.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (this) {
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error closing order storage: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes every pending order. Orders saved while this runs are picked up by the next flush.
+     * An order the sink fails to write stays pending and is tried again on the next flush, and so does
+     * a clear the sink failed to record; endBatch only runs when at least one order was written.
+     *
+     * @return true if nothing failed
+     */
+    private synchronized boolean flush() {
+        boolean ok = true;
+        if (clearRequested) {
+            try {
+                sink.clear();
+                clearRequested = false;
+            } catch (IOException | RuntimeException e) {
+                // orders saved after the clear wait for it, a retried clear would otherwise wipe them
+                System.err.println("Error clearing saved orders, retrying on the next flush: " + e.getMessage());
+                return false;
+            }
+        }
+
+        boolean wrote = false;
+        for (Integer orderId : pending.keySet()) {
+            Order order = pending.remove(orderId);
+            if (order == null) {
+                continue;
+            }
+            try {
+                sink.write(order);
+                wrote = true;
+            } catch (IOException | RuntimeException e) {
+                // keep it for the next flush, unless a newer save of the order is already waiting
+                pending.putIfAbsent(orderId, order);
+                ok = false;
+                System.err.println("Error saving order " + orderId + ", retrying on the next flush: " + e.getMessage());
+            }
+        }
+
+        if (wrote) {
+            try {
+                sink.endBatch();
+            } catch (IOException | RuntimeException e) {
+                ok = false;
+                System.err.println("Error saving orders: " + e.getMessage());
+            }
+        }
+        return ok;
+    }
+}
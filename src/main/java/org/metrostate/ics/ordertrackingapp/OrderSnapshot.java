@@ -0,0 +1,199 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of every order in the driver (orders, food items, company and status) in a single file.
+ * The file is written to a temp file, synced and moved over the old snapshot, so it is always complete;
+ * the directory is synced after the move, so the new snapshot survives a crash once write() returns.
+ * It is read back through a memory-mapped FileChannel, without parsing text.
+ *
+ * Layout: header [int magic][short version][int stringCount][int orderCount], then the string table
+ * (company and food names, each stored once) as [int byteLength][UTF-8 bytes], then per order
+ * [int orderId][long date][double totalPrice][byte type][byte status][int company]
+ * [int itemCount] and per item [int name][int quantity][double price], and finally the
+ * CRC32 of everything before it. Strings are indexes into the table (-1 for null);
+ * type and status are ordinals (-1 for null).
+ */
+final class OrderSnapshot {
+    static final String SNAPSHOT_FILE = "orders.snapshot";
+
+    private static final int MAGIC = 0x4F534E50; // "OSNP"
+    private static final short VERSION = 1;
+
+    private OrderSnapshot() { }
+
+    /**
+     * Writes a snapshot of the given orders, replacing the existing one.
+     *
+     * @param file          The snapshot file
+     * @param orders        The orders to save, in driver order
+     * @param statuses      The status to save for each order, in the same order
+     * @throws IOException  if the snapshot can't be written
+     */
+    static void write(File file, Collection<Order> orders, List<Status> statuses) throws IOException {
+        // build the string table first so every name is written once
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (Order order : orders) {
+            intern(strings, order.getCompany());
+            for (FoodItem item : order.getFoodList()) {
+                intern(strings, item.getName());
+            }
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(fileOut, crc), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(orders.size());
+
+            for (String s : strings.keySet()) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            int i = 0;
+            for (Order order : orders) {
+                out.writeInt(order.getOrderID());
+                out.writeLong(order.getDate());
+                out.writeDouble(order.getTotalPrice());
+                out.writeByte(code(order.getType()));
+                out.writeByte(code(statuses.get(i++)));
+                out.writeInt(index(strings, order.getCompany()));
+                List<FoodItem> foodList = order.getFoodList();
+                out.writeInt(foodList.size());
+                for (FoodItem item : foodList) {
+                    out.writeInt(index(strings, item.getName()));
+                    out.writeInt(item.getQuantity());
+                    out.writeDouble(item.getPrice());
+                }
+            }
+            out.flush();
+            // the checksum covers everything written so far, it isn't part of itself
+            new DataOutputStream(fileOut).writeInt((int) crc.getValue());
+            fileOut.getFD().sync();
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        // the rename itself has to be on disk before the journal it replaces can be emptied
+        OrderDriver.syncDirectory(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Reads every order from a snapshot.
+     *
+     * @param file          The snapshot file
+     * @return              The orders, in the order they were saved
+     * @throws IOException  if the file can't be read or isn't a valid snapshot
+     */
+    static List<Order> read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 18 || size > Integer.MAX_VALUE) {
+                throw new IOException("Order snapshot " + file.getName() + " has an invalid size");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Order snapshot " + file.getName() + " is damaged");
+            }
+            return readOrders(buffer.limit((int) size - 4), file.getName());
+        }
+    }
+
+    private static List<Order> readOrders(ByteBuffer buffer, String name) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException(name + " is not a version " + VERSION + " order snapshot");
+            }
+            String[] strings = new String[buffer.getInt()];
+            int orderCount = buffer.getInt();
+
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (bytes.length < length) {
+                    bytes = new byte[length];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+            Type[] types = Type.values();
+            Status[] statuses = Status.values();
+            List<Order> orders = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                int orderId = buffer.getInt();
+                long date = buffer.getLong();
+                double totalPrice = buffer.getDouble();
+                Type type = decode(types, buffer.get());
+                Status status = decode(statuses, buffer.get());
+                String company = lookup(strings, buffer.getInt());
+                int itemCount = buffer.getInt();
+                List<FoodItem> foodList = new ArrayList<>(itemCount);
+                for (int j = 0; j < itemCount; j++) {
+                    foodList.add(new FoodItem(lookup(strings, buffer.getInt()), buffer.getInt(), buffer.getDouble()));
+                }
+                Order order = new Order(orderId, date, totalPrice, type, status, foodList);
+                order.setCompany(Parser.restoredCompany(company));
+                orders.add(order);
+            }
+            return orders;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Order snapshot " + name + " is truncated or damaged");
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, String s) {
+        if (s != null) {
+            strings.putIfAbsent(s, strings.size());
+        }
+    }
+
+    private static int index(Map<String, Integer> strings, String s) {
+        return (s == null) ? -1 : strings.get(s);
+    }
+
+    private static String lookup(String[] strings, int index) {
+        return (index < 0) ? null : strings[index];
+    }
+
+    private static byte code(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E decode(E[] values, byte code) {
+        return (code >= 0 && code < values.length) ? values[code] : null;
+    }
+}
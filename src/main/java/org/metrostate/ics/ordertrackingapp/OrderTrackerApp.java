@@ -7,17 +7,23 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * Main application class for the Order Tracking System.
- * Sets up the JavaFX application and starts the OrderListener to monitor the testOrders directory.
+ * Sets up the JavaFX application and starts the IngestEngine to monitor the importOrders directory.
+ * The controller only subscribes to the engine, ingest itself doesn't depend on JavaFX.
  */
 public class OrderTrackerApp extends Application {
-    private OrderListener orderListener;
+    private IngestEngine ingestEngine;
     private OrderDriver driver;
+    private OrderJournal journal;
+    private OrderIdAllocator orderIds;
 
     @Override
     public void start(Stage stage) throws IOException {
@@ -36,113 +42,128 @@ public class OrderTrackerApp extends Application {
         driver = new OrderDriver();
 
         loadSavedOrders();
+        OrderPersistence persistence;
+        if (journal != null) {
+            persistence = new OrderPersistence(OrderPersistence.DEFAULT_FLUSH_INTERVAL_MILLIS, journal);
+        } else {
+            // fall back to one file per order, in the directory's OrderCodec format
+            persistence = new OrderPersistence(Directory.getDirectory(Directory.savedOrders));
+        }
         controller.setOrderDriver(driver);
 
         // after saved orders are loaded, watch the importOrders directory
         String importOrdersPath = Directory.getDirectory(Directory.importOrders);
-        orderListener = new OrderListener(importOrdersPath, controller::addOrderFile);
+        ProcessedFileIndex processedFiles;
+        try {
+            processedFiles = new ProcessedFileIndex(
+                    new File(Directory.getDirectory(Directory.savedOrders), ProcessedFileIndex.INDEX_FILE));
+        } catch (IOException e) {
+            System.err.println("Error opening processed file index, files are only remembered for this session: " + e.getMessage());
+            processedFiles = new ProcessedFileIndex();
+        }
+        ingestEngine = new IngestEngine(importOrdersPath, driver, orderIds, processedFiles, persistence);
 
-        controller.setOrderListener(orderListener);
+        controller.setIngestEngine(ingestEngine);
 
-        orderListener.start();
+        ingestEngine.start();
 
         stage.setTitle("Order Tracking System");
         stage.setScene(scene);
         stage.show();
 
-        // stop the listener when the application closes and save state
+        // stop the engine when the application closes and save state
         stage.setOnCloseRequest(event -> {
-            if (orderListener != null) {
-                orderListener.stop();
-            }
-            saveCurrentState();
+            // stops watching, writes the changes still waiting, compacts the journal and closes the file index
+            controller.shutdown();
         });
     }
 
     /**
-     * Loads all saved orders from the savedOrders directory on startup.
-     * Updates the nextOrderNumber to continue from the highest ID found.
-     * Deletes the saved order files after loading.
+     * Loads all saved orders on startup from the order snapshot and journal in the savedOrders directory.
+     * Saved_Order files (in any OrderCodec format) left by older versions are also loaded, added to the journal and then deleted.
+     * Opens the order ID allocator and makes sure it continues after the highest ID found.
      */
     private void loadSavedOrders() {
         String projectPath = System.getProperty("user.dir");
         String savedOrdersPath = Paths.get(projectPath, "src", "main", "orderFiles", "savedOrders").toString();
         File savedOrdersDir = new File(savedOrdersPath);
 
-        if (!savedOrdersDir.exists()) {
-            if (!savedOrdersDir.mkdirs()) {
-                System.err.println("Failed to create saved orders directory: " + savedOrdersPath);
+        // temp files left by a save that was interrupted; the complete file they would have replaced is still there
+        File[] staleFiles = savedOrdersDir.listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (staleFiles != null) {
+            for (File file : staleFiles) {
+                file.delete();
             }
-            return;
         }
 
-        File[] savedFiles = savedOrdersDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".json"));
-        if (savedFiles == null || savedFiles.length == 0) {
-            return;
+        List<Order> restoredOrders = new ArrayList<>();
+        try {
+            journal = new OrderJournal(savedOrdersDir);
+            restoredOrders.addAll(journal.getRecoveredOrders());
+        } catch (IOException e) {
+            System.err.println("Error opening order journal in " + savedOrdersPath + ": " + e.getMessage());
         }
 
-        int maxOrderId = 0;
+        File[] savedFiles = savedOrdersDir.listFiles(file -> file.isFile() && OrderCodec.forFile(file) != null);
         List<File> filesToDelete = new ArrayList<>();
-
-        // load each saved order
-        for (File file : savedFiles) {
+        if (savedFiles != null) {
+            Set<Integer> restoredIds = new HashSet<>();
+            for (Order order : restoredOrders) {
+                restoredIds.add(order.getOrderID());
+            }
+            for (File file : savedFiles) {
+                try {
+                    Order order = Parser.parseSavedOrder(file);
+                    if (restoredIds.add(order.getOrderID())) {
+                        if (journal != null) {
+                            journal.write(order);
+                        }
+                        restoredOrders.add(order);
+                    }
+                    // without a journal the files are the only copy, so keep them
+                    if (journal != null) {
+                        filesToDelete.add(file);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error loading saved order from " + file.getName() + ": " + e.getMessage());
+                }
+            }
             try {
-                Order order = Parser.parseSavedJSONOrder(file);
-                driver.addOrder(order);
-                // track maximum order ID from previous state
-                if (order.getOrderID() > maxOrderId) {
-                    maxOrderId = order.getOrderID();
+                if (journal != null) {
+                    journal.endBatch();
                 }
-                filesToDelete.add(file);
-            } catch (Exception e) {
-                System.err.println("Error loading saved order from " + file.getName() + ": " + e.getMessage());
+            } catch (IOException e) {
+                System.err.println("Error adding saved orders to the journal: " + e.getMessage());
+                filesToDelete.clear();
             }
         }
 
-        if (maxOrderId > 0) {
-            Parser.setNextOrderNumber(maxOrderId);
+        // track maximum order ID from previous state
+        int maxOrderId = 0;
+        for (Order order : restoredOrders) {
+            maxOrderId = Math.max(maxOrderId, order.getOrderID());
         }
 
-        try { //delay to make sure all file handles are released
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        // add them all at once so listeners only see one event
+        driver.addOrders(restoredOrders);
+
+        try {
+            orderIds = new OrderIdAllocator(new File(savedOrdersDir, OrderIdAllocator.ID_FILE));
+        } catch (IOException e) {
+            System.err.println("Error opening order ID file, continuing from the highest saved ID: " + e.getMessage());
+            orderIds = new OrderIdAllocator();
         }
+        // covers orders saved before the ID file existed
+        orderIds.advancePast(maxOrderId);
 
-        // delete saved orders after loading
+        // delete the saved order files now that their orders are in the journal
         for (File file : filesToDelete) {
             try {
-                // force garbabe collection to release file handles for deletion
-                System.gc();
-
-                if (file.exists() && !file.delete()) {
-                    boolean deleted = new File(file.getAbsolutePath()).delete();
-                    if (!deleted) {
-                        file.deleteOnExit();
-                    }
-                }
-            } catch (Exception e) {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                System.err.println("Could not delete " + file.getName() + ", it will be deleted on exit: " + e.getMessage());
                 file.deleteOnExit();
             }
         }
     }
-
-    /**
-     * Saves the current state by exporting all orders to JSON files in the savedOrders directory.
-     */
-    private void saveCurrentState() {
-        String projectPath = System.getProperty("user.dir");
-        String savedOrdersPath = Paths.get(projectPath, "src", "main", "orderFiles", "savedOrders").toString();
-
-        File savedOrdersDir = new File(savedOrdersPath);
-        if (!savedOrdersDir.exists()) {
-            if (!savedOrdersDir.mkdirs()) {
-                System.err.println("Failed to create saved orders directory: " + savedOrdersPath);
-            }
-        }
-
-        if (driver != null) {
-            driver.saveAllOrdersToJSON(savedOrdersPath);
-        }
-    }
 }
@@ -6,6 +6,8 @@ import javafx.scene.text.*;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 
 import java.io.*;
 import java.util.*;
@@ -18,13 +20,13 @@ import java.nio.file.StandardCopyOption;
  */
 public class OrderTrackerController {
     @FXML
-    private VBox ordersContainer;
+    private ListView<Order> ordersList;
 
     @FXML
-    private VBox detailContainer;
+    private Label parseErrorLabel;
 
     @FXML
-    private ScrollPane scrollPane;
+    private VBox detailContainer;
 
     @FXML
     private Button cancelButton;
@@ -47,26 +49,65 @@ public class OrderTrackerController {
     @FXML
     private ComboBox<String> typeFilter;
 
-    private List<String> orderFiles;
-    private OrderListener orderListener;
+    private static final int MAX_INGEST_ERRORS = 20;
+
+    private IngestEngine ingestEngine;
+    // lines of the ingest error message, oldest first, kept until dismissed
+    private final ArrayDeque<String> ingestErrors = new ArrayDeque<>();
+    private int droppedIngestErrors = 0;
+    // new orders reach the board through the driver's listener, this only reports the files that were left out
+    private final IngestEngine.Subscriber ingestSubscriber = (orders, failedFiles, duplicates) -> {
+        if (!failedFiles.isEmpty() || !duplicates.isEmpty()) {
+            Platform.runLater(() -> showIngestErrors(failedFiles, duplicates));
+        }
+    };
     private OrderDriver orderDriver;
-    private VBox selectedOrderBox = null;
     private Order selectedOrder = null;
     private OrderDriver.OrderChangeListener driverListener = null;
+    // detail panel, built on first use and then updated in place
+    private Label detailHeader;
+    private TextArea detailText;
+    private final OrderDetailCache orderDetails = new OrderDetailCache();
+    // driver events from any thread are collected here and drawn once per frame
+    private final OrderUpdateCoalescer boardUpdates = new OrderUpdateCoalescer(this::renderUpdates);
+    // orders shown by ordersList, kept sorted by their position in the driver
+    private final ObservableList<Order> visibleOrders = FXCollections.observableArrayList();
+    // order ID -> its row in visibleOrders; rows from staleFrom on may have moved and are re-indexed on the next lookup
+    private final Map<Integer, Integer> visibleRows = new HashMap<>();
+    private int staleFrom = 0;
+    // current filters, null means "All"
+    private Status filterStatus = null;
+    private Type filterType = null;
+    // order ID -> the cell currently showing that order, kept up to date by OrderCell.updateItem
+    private final Map<Integer, OrderCell> visibleCells = new HashMap<>();
+    // set while the list selection is changed from code, so it isn't treated as a click
+    private boolean updatingSelection = false;
 
     private final String BASE_BOX_STYLE = "-fx-border-color: #cccccc; -fx-border-width: 1; -fx-background-color: #DFE8E8; -fx-cursor: hand;";
+    private final String SELECTED_BOX_STYLE = BASE_BOX_STYLE + " -fx-effect: dropshadow(gaussian, rgba(158,158,158,0.6), 14, 0.5, 0, 0); -fx-border-color: #9e9e9e; -fx-border-width: 1;";
+    // cells keep a plain background, the card inside shows the selection
+    private final String CELL_STYLE = "-fx-background-color: white; -fx-background: white; -fx-padding: 0 0 15 0;";
 
     /**
      * Initializes GUI components.
-     * Sets up buttons, filters, and scroll pane defaults.
+     * Sets up buttons, filters, and the order list.
      */
     @FXML
     public void initialize() {
-        this.orderFiles = new ArrayList<>();
-        // keep default behavior if scrollPane is present
-        // refer to scrollPane to avoid unused-field warning; keep default behavior if null
-        if (scrollPane != null) {
-            scrollPane.setFitToWidth(true);
+        // the list only creates cells for the visible rows and reuses them while scrolling
+        if (ordersList != null) {
+            ordersList.setItems(visibleOrders);
+            ordersList.setCellFactory(list -> new OrderCell());
+            ordersList.getSelectionModel().selectedItemProperty().addListener((obs, oldOrder, order) -> {
+                if (!updatingSelection && order != null) {
+                    selectOrder(order);
+                }
+            });
+        }
+        if (parseErrorLabel != null) {
+            parseErrorLabel.setVisible(false);
+            parseErrorLabel.setManaged(false);
+            parseErrorLabel.setOnMouseClicked(e -> dismissIngestErrors());
         }
         // Cancel buttons are disabled at startup
         if (cancelButton != null){
@@ -127,13 +168,18 @@ public class OrderTrackerController {
     }
 
     /**
-     * Sets the listener to notify the GUI of order changes.
+     * Sets the engine that ingests and saves orders, and subscribes to its ingest results.
      *
-     * @param orderListener The listener to notify of order changes
+     * @param engine The ingest engine
      */
-    public void setOrderListener(OrderListener orderListener) {
-
-        this.orderListener = orderListener;
+    public void setIngestEngine(IngestEngine engine) {
+        if (this.ingestEngine != null) {
+            this.ingestEngine.removeSubscriber(ingestSubscriber);
+        }
+        this.ingestEngine = engine;
+        if (engine != null) {
+            engine.addSubscriber(ingestSubscriber);
+        }
     }
 
     /**
@@ -148,31 +194,18 @@ public class OrderTrackerController {
             driverListener = new OrderDriver.OrderChangeListener() {
                 @Override
                 public void orderAdded(Order order) {
-                    // orders on separate thread - update UI on JavaFX thread
-                    Platform.runLater(() -> {
-                        // save new order to savedOrders
-                        OrderDriver.orderExportJSON(order, Directory.getDirectory(Directory.savedOrders));
-                        applyFilters();
-                        updateClearAllButtonVisibility(); //only visible when there are orders
-                    });
+                    // orders on separate thread - drawn on the JavaFX thread with the next frame
+                    boardUpdates.ordersAdded(List.of(order));
+                }
+
+                @Override
+                public void ordersAdded(List<Order> orders) {
+                    boardUpdates.ordersAdded(orders);
                 }
 
                 @Override
                 public void orderChanged(Order order) {
-                    //another thread - update UI on JavaFX thread
-                    Platform.runLater(() -> {
-                        // save updated order to savedOrders
-                        OrderDriver.orderExportJSON(order, Directory.getDirectory(Directory.savedOrders));
-                        applyFilters();
-                        VBox box = findOrderBoxForOrder(order);
-                        if (box != null) refreshOrderBox(box, order);
-                        // if the changed order is the one currently selected, update details/buttons
-                        if (selectedOrder != null && order.getOrderID() == selectedOrder.getOrderID()) {
-                            selectedOrder = order;
-                            showOrderDetails(selectedOrder);
-                            updateButtonsVisibility(selectedOrder);
-                        }
-                    });
+                    boardUpdates.orderChanged(order);
                 }
             };
             this.orderDriver.addListener(driverListener);
@@ -196,11 +229,6 @@ public class OrderTrackerController {
      */
     @FXML
     private void exitApplication() {
-        // stop the OrderListener thread first to avoid holding file handles while we move/delete files
-        if (orderListener != null) {
-            orderListener.stop();
-        }
-
         saveStateOnExit();
 
         if (orderDriver != null && driverListener != null) {
@@ -210,6 +238,18 @@ public class OrderTrackerController {
         System.exit(0);
     }
 
+    /**
+     * Stops ingesting new order files, writes any order changes that are still waiting to be saved
+     * and closes the processed file index. Called on every exit path, the window closing and the Exit button.
+     */
+    public void shutdown() {
+        boardUpdates.stop();
+        if (ingestEngine != null) {
+            ingestEngine.removeSubscriber(ingestSubscriber);
+            ingestEngine.stop();
+        }
+    }
+
     /**
      * Called by the Clear All button in the FXML
      * Clears all orders from the system after confirmation
@@ -226,20 +266,25 @@ public class OrderTrackerController {
 
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                orderDriver.clearAllOrders();
-
-                if (ordersContainer != null) {
-                    ordersContainer.getChildren().clear();
-                }
-                if (detailContainer != null) {
-                    detailContainer.getChildren().clear();
-                    Label header = new Label("Order Details");
-                    header.setFont(Font.font("System", FontWeight.BOLD, 16));
-                    detailContainer.getChildren().add(header);
+                if (ingestEngine != null) {
+                    ingestEngine.clearAllOrders();
+                } else {
+                    orderDriver.clearAllOrders();
                 }
+                // updates for the removed orders must not bring them back
+                boardUpdates.clear();
 
                 selectedOrder = null;
-                selectedOrderBox = null;
+                setListSelection(null);
+                setRows(List.of());
+                dismissIngestErrors();
+                orderDetails.clear();
+                if (detailContainer != null) {
+                    createDetailNodes();
+                    detailHeader.setText("Order Details");
+                    detailText.setText("");
+                    detailContainer.getChildren().setAll(detailHeader);
+                }
 
                 updateClearAllButtonVisibility();
             }
@@ -258,19 +303,16 @@ public class OrderTrackerController {
     }
 
     /**
-     * Saves all current orders to the savedOrders directory as JSON files.
+     * Saves all current orders to the order journal in the savedOrders directory.
      */
     private void saveStateOnExit() {
         if (orderDriver == null) return;
 
-        String savedOrdersPath = Directory.getDirectory(Directory.savedOrders);
-
-        File savedOrdersDir = new File(savedOrdersPath);
-        if (!savedOrdersDir.exists()) {
-            savedOrdersDir.mkdirs();
+        // queue every order, then stop the engine, which drains the queue before the files are moved
+        if (ingestEngine != null) {
+            ingestEngine.saveAll();
         }
-
-        orderDriver.saveAllOrdersToJSON(savedOrdersPath);
+        shutdown();
 
         // move all orders from import to test by copying and deleting originals (3 delete retries)
         String importPath = Directory.getDirectory(Directory.importOrders);
@@ -325,121 +367,219 @@ public class OrderTrackerController {
     }
 
     /**
-     * Adds a new order file to the display
-     * This method is called by the OrderListener when a new file is detected
+     * Adds the names of files that could not be parsed, and of duplicate orders that were skipped, to the
+     * message under the order list. Messages from earlier batches stay until the user clicks the message or
+     * clears all orders; only the newest MAX_INGEST_ERRORS lines are kept.
+     *
+     * @param failedFiles   The files that failed to parse
+     * @param duplicates    The files skipped as duplicates
      */
-    public void addOrderFile(File file) {
-        if (file == null || ordersContainer == null) {
-            return;
+    private void showIngestErrors(List<File> failedFiles, List<OrderIngestPipeline.Duplicate> duplicates) {
+        for (File file : failedFiles) {
+            addIngestError("Parse error: " + file.getName());
+        }
+        for (OrderIngestPipeline.Duplicate duplicate : duplicates) {
+            addIngestError("Skipped duplicate: " + duplicate.file().getName()
+                    + " (same as order #" + duplicate.originalOrderId() + ")");
         }
+        if (parseErrorLabel == null || ingestErrors.isEmpty()) return;
 
-        String fileName = file.getName();
+        StringBuilder text = new StringBuilder();
+        if (droppedIngestErrors > 0) {
+            text.append(droppedIngestErrors).append(" earlier message(s) not shown\n");
+        }
+        for (String line : ingestErrors) {
+            text.append(line).append('\n');
+        }
+        text.append("(click to dismiss)");
+        parseErrorLabel.setText(text.toString());
+        parseErrorLabel.setVisible(true);
+        parseErrorLabel.setManaged(true);
+    }
 
-        // avoid duplicates
-        if (orderFiles.contains(fileName)) {
-            return;
+    /**
+     * Adds a line to the ingest error message, dropping the oldest line once it is full.
+     */
+    private void addIngestError(String line) {
+        if (ingestErrors.size() == MAX_INGEST_ERRORS) {
+            ingestErrors.removeFirst();
+            droppedIngestErrors++;
         }
+        ingestErrors.addLast(line);
+    }
 
-        // parse the order on a background thread
-        orderFiles.add(fileName);
-        new Thread(() -> {
-            Order order = null;
-            if (fileName.toLowerCase().endsWith(".json")) {
-                try {
-                    order = Parser.parseJSONOrder(file);
-                } catch (IOException e) {
-                    // leave null
-                }
-            }
-            if (fileName.toLowerCase().endsWith(".xml")) {
-                try {
-                    order = Parser.parseXMLOrder(file);
-                } catch (IOException e) {
-                    // leave null
-                }
-            }
+    /**
+     * Hides the ingest error message and forgets its lines.
+     */
+    private void dismissIngestErrors() {
+        ingestErrors.clear();
+        droppedIngestErrors = 0;
+        if (parseErrorLabel == null) return;
+        parseErrorLabel.setText("");
+        parseErrorLabel.setVisible(false);
+        parseErrorLabel.setManaged(false);
+    }
 
-            final Order fOrder = order;
-            Platform.runLater(() -> {
-                if (fOrder != null && orderDriver != null) {
-                    orderDriver.addOrder(fOrder);
-                    applyFilters();
-                } else {
-                    VBox orderBox = createOrderBox(fileName, null);
-                    ordersContainer.getChildren().addFirst(orderBox);
-                }
-            });
-        }).start();
+    /**
+     * Applies a chunk of collected driver events, called by boardUpdates on the JavaFX thread.
+     *
+     * @param added     orders added to the driver
+     * @param changed   orders whose status changed
+     */
+    private void renderUpdates(List<Order> added, List<Order> changed) {
+        if (!added.isEmpty()) {
+            addToBoard(added);
+            updateClearAllButtonVisibility(); //only visible when there are orders
+        }
+        for (Order order : changed) {
+            refreshOrder(order);
+            // if the changed order is the one currently selected, update details/buttons
+            if (selectedOrder != null && order.getOrderID() == selectedOrder.getOrderID()) {
+                selectedOrder = order;
+                showOrderDetails(selectedOrder);
+                updateButtonsVisibility(selectedOrder);
+            }
+        }
     }
 
     /**
-     * Creates a VBox display for a single order
-     * show order id, status, and type
+     * Shows newly added orders that match the current filters.
+     * New orders are normally the last in the driver, so this is an append.
+     *
+     * @param orders The orders that were added to the driver
      */
-    private VBox createOrderBox(String sourceName, Order order) {
-        VBox orderBox = new VBox(6);
-        orderBox.setPadding(new Insets(10));
-        orderBox.setStyle(BASE_BOX_STYLE);
+    private void addToBoard(List<Order> orders) {
+        List<Order> toAppend = new ArrayList<>();
+        for (Order order : orders) {
+            if (!matchesFilters(order)) continue;
+            int index = visibleIndexOf(order);
+            if (index >= 0) continue; // already shown by an earlier applyFilters
+            int insertAt = -(index + 1);
+            if (insertAt == visibleOrders.size()) {
+                // batches come in driver order, so everything after this goes to the end too
+                toAppend.add(order);
+            } else {
+                insertRow(insertAt, order);
+            }
+        }
+        appendRows(toAppend);
+    }
 
-        // top row: Order #id: + status
-        HBox topRow = new HBox(8);
-        Label orderTitle = new Label();
-        orderTitle.setFont(Font.font("System", FontWeight.BOLD, 14));
+    /**
+     * Finds an order's row in visibleOrders. A shown order is a map lookup; rows that moved
+     * since the last lookup are re-indexed first, once for every change made in between.
+     *
+     * @param order The order to find
+     * @return      The row index, or (-(insertion point) - 1) if the order isn't shown
+     */
+    private int visibleIndexOf(Order order) {
+        if (staleFrom < visibleOrders.size()) {
+            for (int row = staleFrom; row < visibleOrders.size(); row++) {
+                visibleRows.put(visibleOrders.get(row).getOrderID(), row);
+            }
+            staleFrom = visibleOrders.size();
+        }
+        Integer row = visibleRows.get(order.getOrderID());
+        if (row != null && row < visibleOrders.size() && visibleOrders.get(row) == order) {
+            return row;
+        }
+        return -(insertionPoint(order) + 1);
+    }
 
-        Label statusLabel = new Label();
-        statusLabel.setFont(Font.font("System", FontWeight.BOLD, 13));
+    /**
+     * Finds where a hidden order would go in visibleOrders, with a binary search on positions in the driver.
+     * New orders are last in the driver, so the end of the list is checked first.
+     *
+     * @param order An order that isn't shown
+     * @return      The row it would be inserted at
+     */
+    private int insertionPoint(Order order) {
+        int position = orderDriver.indexOf(order);
+        int size = visibleOrders.size();
+        if (size == 0 || orderDriver.indexOf(visibleOrders.get(size - 1)) < position) {
+            return size;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midPosition = orderDriver.indexOf(visibleOrders.get(mid));
+            if (midPosition < position) {
+                low = mid + 1;
+            } else if (midPosition > position) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
 
-        // second row: type  and company
-        HBox secondRow = new HBox(8);
-        Label typeLabel = new Label();
-        typeLabel.setFont(Font.font("System", 12));
-        Label companyLabel = new Label();
-        companyLabel.setFont(Font.font("System", 12));
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
+    /**
+     * Shows an order at the given row. Rows after it move down and are re-indexed on the next lookup.
+     */
+    private void insertRow(int row, Order order) {
+        visibleOrders.add(row, order);
+        staleFrom = Math.min(staleFrom, row);
+    }
 
-        if (order != null) {
-            orderTitle.setText("Order #" + order.getOrderID() + ":");
+    /**
+     * Hides the order at the given row. Rows after it move up and are re-indexed on the next lookup.
+     */
+    private void removeRow(int row) {
+        Order removed = visibleOrders.remove(row);
+        visibleRows.remove(removed.getOrderID());
+        staleFrom = Math.min(staleFrom, row);
+    }
 
-            // status text and color
-            String statusText = order.displayStatus();
-            statusLabel.setText(statusText);
-            statusLabel.setStyle("-fx-text-fill: " + statusColor(order.getStatus()) + ";");
+    /**
+     * Shows orders after the last row, indexing them right away if the rows before them are up to date.
+     */
+    private void appendRows(List<Order> orders) {
+        int row = visibleOrders.size();
+        visibleOrders.addAll(orders);
+        if (staleFrom == row) {
+            for (Order order : orders) {
+                visibleRows.put(order.getOrderID(), row++);
+            }
+            staleFrom = row;
+        }
+    }
 
-            // type formatting
-            String type = order.displayType();
-            typeLabel.setText(type);
-            typeLabel.setStyle("-fx-text-fill: " + typeColor(type) + "; -fx-font-weight: bold;");
+    /**
+     * Replaces every row.
+     */
+    private void setRows(List<Order> orders) {
+        visibleRows.clear();
+        staleFrom = 0;
+        visibleOrders.setAll(orders);
+    }
 
-            companyLabel.setText(order.getCompany());
-            // store order id
-            orderBox.setUserData(order.getOrderID());
-        } else {
-            orderTitle.setText(sourceName);
-            statusLabel.setText("");
-            typeLabel.setText("Parse error");
-            typeLabel.setFont(Font.font("System", FontPosture.ITALIC, 12));
-            companyLabel.setText("");
-        }
-
-        // add details to rows and add rows to the details box on the right
-        topRow.getChildren().addAll(orderTitle, statusLabel);
-        secondRow.getChildren().addAll(typeLabel, spacer, companyLabel);
-        orderBox.getChildren().addAll(topRow, secondRow);
-
-        // click behavior: show details on right pane if parsed
-        orderBox.setOnMouseClicked(evt -> {
-            selectOrderBox(orderBox);
-            selectedOrder = order;
-            if (order != null) showOrderDetails(order);
-            // hide Cancel button when order is completed or cancelled
-            if (cancelButton != null) {
-                cancelButton.setDisable(order == null || order.getStatus() == Status.completed || order.getStatus() == Status.cancelled);
-            }
-            updateButtonsVisibility(order);
-        });
+    /**
+     * Returns true if the order matches the current status and type filters.
+     *
+     * @param order The order to check
+     * @return      true if the order should be shown
+     */
+    private boolean matchesFilters(Order order) {
+        return (filterStatus == null || order.getStatus() == filterStatus)
+                && (filterType == null || order.getType() == filterType);
+    }
 
-        return orderBox;
+    /**
+     * Makes an order the selected one and shows its details and buttons.
+     * Called when an order is clicked in the list.
+     *
+     * @param order The order that was selected
+     */
+    private void selectOrder(Order order) {
+        selectedOrder = order;
+        showOrderDetails(order);
+        // hide Cancel button when order is completed or cancelled
+        if (cancelButton != null) {
+            cancelButton.setDisable(order.getStatus() == Status.completed || order.getStatus() == Status.cancelled);
+        }
+        updateButtonsVisibility(order);
     }
 
     /**
@@ -485,41 +625,58 @@ public class OrderTrackerController {
      */
     private void showOrderDetails(Order order) {
         if (detailContainer == null) return;
-        detailContainer.getChildren().clear();
+        createDetailNodes();
 
-        Label header = new Label("Order Details - #" + order.getOrderID());
-        header.setFont(Font.font("System", FontWeight.BOLD, 16));
+        detailHeader.setText("Order Details - #" + order.getOrderID());
+        // the text is cached per order and only rebuilt after a status change
+        String text = orderDetails.getText(order);
+        if (!text.equals(detailText.getText())) {
+            detailText.setText(text);
+        }
 
-        TextArea details = new TextArea(order.toString());
-        details.setEditable(false);
-        details.setWrapText(true);
-        details.setPrefWidth(300);
-        details.setPrefHeight(400);
+        if (detailContainer.getChildren().size() != 2 || detailContainer.getChildren().get(1) != detailText) {
+            detailContainer.getChildren().setAll(detailHeader, detailText);
+        }
+    }
 
-        detailContainer.getChildren().addAll(header, details);
+    /**
+     * Creates the detail header and text area the first time they are needed.
+     * They are reused for every order shown afterwards.
+     */
+    private void createDetailNodes() {
+        if (detailText != null) return;
+        detailHeader = new Label("Order Details");
+        detailHeader.setFont(Font.font("System", FontWeight.BOLD, 16));
+
+        detailText = new TextArea();
+        detailText.setEditable(false);
+        detailText.setWrapText(true);
+        detailText.setPrefWidth(300);
+        detailText.setPrefHeight(400);
     }
 
     /**
-     * Visual indicator for selected order box.
+     * Selects the given order's row in the list without treating it as a click.
+     * Clears the list selection if the order is null or filtered out.
      *
-     * @param box The VBox representing the order to select
+     * @param order The order to select
      */
-    private void selectOrderBox(VBox box) {
-        if (selectedOrderBox != null) {
-            selectedOrderBox.setStyle(BASE_BOX_STYLE);
-        }
-        if (box != null) {
-            // selected order style around box
-            String SELECTED_BOX_STYLE = BASE_BOX_STYLE + " -fx-effect: dropshadow(gaussian, rgba(158,158,158,0.6), 14, 0.5, 0, 0); -fx-border-color: #9e9e9e; -fx-border-width: 1;";
-            box.setStyle(SELECTED_BOX_STYLE);
-            selectedOrderBox = box;
-        } else {
-            selectedOrderBox = null;
-            updateButtonsVisibility(null);
+    private void setListSelection(Order order) {
+        if (ordersList == null) return;
+        updatingSelection = true;
+        try {
+            // negative when the order is filtered out
+            int index = (order == null) ? -1 : visibleIndexOf(order);
+            if (index >= 0) {
+                ordersList.getSelectionModel().select(index);
+            } else {
+                ordersList.getSelectionModel().clearSelection();
+            }
+        } finally {
+            updatingSelection = false;
         }
     }
 
-
     /**
      * Returns a color code based on the order status.
      *
@@ -567,11 +724,9 @@ public class OrderTrackerController {
                 if (orderDriver.cancelOrderGUI(selectedOrder)) {
                     // rebuild the list so UI reflects the current state
                     Platform.runLater(() -> {
-                        applyFilters();
+                        // refresh the left-side row for this order
+                        refreshOrder(selectedOrder);
                         showOrderDetails(selectedOrder);
-                        // refresh the left-side box for this order
-                        VBox found = findOrderBoxForOrder(selectedOrder);
-                        if (found != null) refreshOrderBox(found, selectedOrder);
                         updateButtonsVisibility(selectedOrder);
 
                         Alert info = new Alert(Alert.AlertType.INFORMATION);
@@ -602,9 +757,7 @@ public class OrderTrackerController {
         // refresh UI
         Platform.runLater(() -> {
             if (success) {
-                applyFilters();
-                VBox found = findOrderBoxForOrder(selectedOrder);
-                if (found != null) refreshOrderBox(found, selectedOrder);
+                refreshOrder(selectedOrder);
                 showOrderDetails(selectedOrder);
 
                 Alert info = new Alert(Alert.AlertType.INFORMATION);
@@ -627,25 +780,8 @@ public class OrderTrackerController {
         showOrderDetails(selectedOrder);
         updateButtonsVisibility(selectedOrder);
 
-        // replace the corresponding box in the orders list with updated one
-        if (ordersContainer != null) {
-            VBox oldBox = (selectedOrderBox != null) ? selectedOrderBox : findOrderBoxForOrder(selectedOrder);
-            if (oldBox != null) {
-                int idx = ordersContainer.getChildren().indexOf(oldBox);
-                VBox newBox = createOrderBox("Order #" + selectedOrder.getOrderID(), selectedOrder);
-                if (idx >= 0) {
-                    ordersContainer.getChildren().set(idx, newBox);
-                } else {
-                    ordersContainer.getChildren().remove(oldBox);
-                    ordersContainer.getChildren().addFirst(newBox);
-                }
-                selectedOrderBox = newBox;
-                selectOrderBox(newBox);
-            }
-        }
-        VBox found = findOrderBoxForOrder(selectedOrder);
-        if (found != null) refreshOrderBox(found, selectedOrder);
-        Platform.runLater(this::applyFilters);
+        // redraw the order's row, it is hidden if it no longer matches the filters
+        refreshOrder(selectedOrder);
     }
 
     /**
@@ -657,183 +793,151 @@ public class OrderTrackerController {
         showOrderDetails(selectedOrder);
         updateButtonsVisibility(selectedOrder);
 
-        // refresh
-        if (ordersContainer != null) {
-            VBox oldBox = (selectedOrderBox != null) ? selectedOrderBox : findOrderBoxForOrder(selectedOrder);
-            if (oldBox != null) {
-                int idx = ordersContainer.getChildren().indexOf(oldBox);
-                VBox newBox = createOrderBox("Order #" + selectedOrder.getOrderID(), selectedOrder);
-                if (idx >= 0) {
-                    ordersContainer.getChildren().set(idx, newBox);
-                } else {
-                    ordersContainer.getChildren().remove(oldBox);
-                    ordersContainer.getChildren().addFirst(newBox);
-                }
-                selectedOrderBox = newBox;
-                selectOrderBox(newBox);
-            }
-        }
-        VBox found = findOrderBoxForOrder(selectedOrder);
-        if (found != null) refreshOrderBox(found, selectedOrder);
-        Platform.runLater(this::applyFilters);
+        // redraw the order's row, it is hidden if it no longer matches the filters
+        refreshOrder(selectedOrder);
     }
 
     /**
-     * Updates the labels inside an orderBox (left-side list) to reflect current order state.
+     * Redraws an order's row after its status changed.
+     * Replacing the order in the board list makes the filtered view re-check it,
+     * so it disappears if it no longer matches the filters.
      *
-     * @param orderBox  The VBox representing the order
-     * @param order     The order whose data will be displayed
+     * @param order The order that changed
      */
-    private void refreshOrderBox(VBox orderBox, Order order) {
+    private void refreshOrder(Order order) {
         if (order == null) return;
-        if (orderBox == null) {
-            orderBox = findOrderBoxForOrder(order);
-        }
-        if (orderBox == null) return;
-
-        final VBox boxToUpdate = orderBox;
-        final Order orderCopy = order;
-        // do UI update on the JavaFX Application Thread
-        Platform.runLater(() -> {
-            try {
-                // topRow: [orderTitle, statusLabel]
-                if (!boxToUpdate.getChildren().isEmpty()) {
-                    if (boxToUpdate.getChildren().get(0) instanceof HBox topRow) {
-                        if (topRow.getChildren().size() > 1 && topRow.getChildren().get(1) instanceof Label statusLabel) {
-                            statusLabel.setText(orderCopy.displayStatus());
-                            statusLabel.setStyle("-fx-text-fill: " + statusColor(orderCopy.getStatus()) + ";");
-                        }
-                    }
-
-                    // secondRow: [typeLabel, spacer, companyLabel]
-                    if (boxToUpdate.getChildren().size() > 1 && boxToUpdate.getChildren().get(1) instanceof HBox secondRow) {
-                        if (!secondRow.getChildren().isEmpty() && secondRow.getChildren().getFirst() instanceof Label typeLabel) {
-                            typeLabel.setText(orderCopy.displayType());
-                            typeLabel.setStyle("-fx-text-fill: " + typeColor(orderCopy.displayType()) + "; -fx-font-weight: bold;");
-                        }
-                    }
-                }
-                if (boxToUpdate != selectedOrderBox) {
-                    selectOrderBox(boxToUpdate);
-                } else {
-                    boxToUpdate.setStyle(BASE_BOX_STYLE + " -fx-effect: dropshadow(gaussian, rgba(158,158,158,0.6), 14, 0.5, 0, 0); -fx-border-color: #9e9e9e; -fx-border-width: 1;");
-                }
-            } catch (Exception e) {
-                // let thread die
-            }
-        });
-    }
-
-    /**
-     * Finds the left-side VBox for a given order by matching the "Order #<id>" label text.
-     *
-     * @param order The order to locate
-     * @return      The VBox corresponding to the order, or null
-     */
-    private VBox findOrderBoxForOrder(Order order) {
-        if (ordersContainer == null || order == null) return null;
-        for (javafx.scene.Node node : ordersContainer.getChildren()) {
-            if (!(node instanceof VBox vb)) continue;
-            if (vb.getChildren().isEmpty()) continue;
-            javafx.scene.Node first = vb.getChildren().getFirst();
-            if (!(first instanceof HBox topRow)) continue;
-            if (topRow.getChildren().isEmpty()) continue;
-            javafx.scene.Node labelNode = topRow.getChildren().getFirst();
-            if (!(labelNode instanceof Label titleLabel)) continue;
-            String txt = titleLabel.getText();
-            if (txt == null) continue;
-            try {
-                int idxHash = txt.indexOf('#');
-                int idxColon = txt.indexOf(':');
-                if (idxHash >= 0) {
-                    String numStr;
-                    if (idxColon > idxHash) numStr = txt.substring(idxHash + 1, idxColon).trim();
-                    else numStr = txt.substring(idxHash + 1).trim();
-                    int id = Integer.parseInt(numStr);
-                    if (id == order.getOrderID()) {
-                        return vb;
-                    }
-                }
-            } catch (Exception e) {
-                // ignore parse errors,continue
+        int index = visibleIndexOf(order);
+        boolean matches = matchesFilters(order);
+        if (index >= 0 && matches) {
+            // relabel the row in place if it is on screen
+            OrderCell cell = visibleCells.get(order.getOrderID());
+            if (cell != null && cell.getItem() == order) {
+                cell.showOrder(order);
             }
+        } else if (index >= 0) {
+            removeRow(index);
+        } else if (matches) {
+            insertRow(-(index + 1), order);
+        }
+        if (order == selectedOrder) {
+            setListSelection(selectedOrder);
         }
-        return null;
     }
 
     /**
      * Filters the orders displayed in the GUI based on the selected status and type.
+     * Only the filtered view changes, rows are created by the list for the visible part only.
      */
     private void applyFilters() {
-        if (ordersContainer == null || orderDriver == null){
+        if (ordersList == null || orderDriver == null){
             return;
         }
 
-        String selectedStatus;
+        filterStatus = null;
         if (statusFilter != null) {
-            selectedStatus = statusFilter.getValue();
-        } else {
-            selectedStatus = "All";
+            for (Status status : Status.values()) {
+                if (status.toString().equalsIgnoreCase(statusFilter.getValue())) {
+                    filterStatus = status;
+                }
+            }
         }
 
-        String selectedType;
+        filterType = null;
         if (typeFilter != null) {
-            selectedType = typeFilter.getValue();
-        } else {
-            selectedType = "All";
+            for (Type type : Type.values()) {
+                if (type.toString().equalsIgnoreCase(typeFilter.getValue())) {
+                    filterType = type;
+                }
+            }
         }
 
-        // Clears existing children first to prevent duplicate child errors
-        ordersContainer.getChildren().clear();
+        // the driver's indexes return the matching orders already in board order
+        setRows(orderDriver.getOrders(filterStatus, filterType));
 
-        // reuse existing boxes when possible to avoid replacing nodes
-        Map<Integer, VBox> existing = new HashMap<>();
-        for (javafx.scene.Node node : ordersContainer.getChildren()) {
-            if (!(node instanceof VBox vb)) continue;
-            Object ud = vb.getUserData();
-            if (ud instanceof Integer) {
-                existing.put((Integer) ud, vb);
-            }
+        // re-select the previously selected order if it is still displayed
+        if (selectedOrder != null) {
+            setListSelection(selectedOrder);
+            updateButtonsVisibility(selectedOrder);
         }
+    }
 
-        List<javafx.scene.Node> newChildren = new ArrayList<>();
-        // just All for now
-        for (Order order : orderDriver.getOrders()) {
-            boolean statusMatch = selectedStatus.equals("All") ||
-                    order.displayStatus().equalsIgnoreCase(selectedStatus);
-            boolean typeMatch = selectedType.equals("All") || order.displayType().equalsIgnoreCase(selectedType);
-
-            if (statusMatch && typeMatch) {
-                VBox box = existing.get(order.getOrderID());
-                if (box == null) {
-                    box = createOrderBox("Order #" + order.getOrderID(), order);
-                } else {
-                    // update userData just in case and refresh labels
-                    box.setUserData(order.getOrderID());
-                    refreshOrderBox(box, order);
-                    VBox finalBox = box;
-                    box.setOnMouseClicked(evt -> {
-                        selectOrderBox(finalBox);
-                        selectedOrder = order;
-                        showOrderDetails(order);
-                        if (cancelButton != null) {
-                            cancelButton.setDisable(order.getStatus() == Status.completed || order.getStatus() == Status.cancelled);
-                        }
-                        updateButtonsVisibility(order);
-                    });
-                }
-                newChildren.add(box);
+    /**
+     * List cell that shows one order as a card with its id, status, type and company.
+     * The ListView only creates cells for visible rows and reuses them while scrolling,
+     * so the card is built once per cell and updateItem just changes the labels.
+     */
+    private class OrderCell extends ListCell<Order> {
+        private final VBox card = new VBox(6);
+        private final Label orderTitle = new Label();
+        private final Label statusLabel = new Label();
+        private final Label typeLabel = new Label();
+        private final Label companyLabel = new Label();
+
+        OrderCell() {
+            card.setPadding(new Insets(10));
+            card.setStyle(BASE_BOX_STYLE);
+
+            // top row: Order #id: + status
+            orderTitle.setFont(Font.font("System", FontWeight.BOLD, 14));
+            statusLabel.setFont(Font.font("System", FontWeight.BOLD, 13));
+            HBox topRow = new HBox(8, orderTitle, statusLabel);
+
+            // second row: type  and company
+            typeLabel.setFont(Font.font("System", 12));
+            companyLabel.setFont(Font.font("System", 12));
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+            HBox secondRow = new HBox(8, typeLabel, spacer, companyLabel);
+
+            card.getChildren().addAll(topRow, secondRow);
+            setStyle(CELL_STYLE);
+        }
+
+        @Override
+        protected void updateItem(Order order, boolean empty) {
+            Order previous = getItem();
+            super.updateItem(order, empty);
+            setText(null);
+
+            // keep the ID -> cell index pointing at whichever cell shows each order
+            if (previous != null && visibleCells.get(previous.getOrderID()) == this) {
+                visibleCells.remove(previous.getOrderID());
             }
+            if (empty || order == null) {
+                setGraphic(null);
+                return;
+            }
+            visibleCells.put(order.getOrderID(), this);
+            showOrder(order);
         }
 
-        ordersContainer.getChildren().setAll(newChildren);
+        /**
+         * Sets the card's labels from the order.
+         *
+         * @param order The order shown by this cell
+         */
+        void showOrder(Order order) {
+            orderTitle.setText("Order #" + order.getOrderID() + ":");
 
-        // re-select the previously selected order if it is still displayed
-        if (selectedOrder != null) {
-            VBox found = findOrderBoxForOrder(selectedOrder);
-            if (found != null) selectOrderBox(found);
-            else selectedOrderBox = null;
-            updateButtonsVisibility(selectedOrder);
+            // status text and color
+            statusLabel.setText(order.displayStatus());
+            statusLabel.setStyle("-fx-text-fill: " + statusColor(order.getStatus()) + ";");
+
+            // type formatting
+            String type = order.displayType();
+            typeLabel.setText(type);
+            typeLabel.setStyle("-fx-text-fill: " + typeColor(type) + "; -fx-font-weight: bold;");
+
+            companyLabel.setText(order.getCompany());
+            card.setStyle(isSelected() ? SELECTED_BOX_STYLE : BASE_BOX_STYLE);
+            setGraphic(card);
+        }
+
+        @Override
+        public void updateSelected(boolean selected) {
+            super.updateSelected(selected);
+            // selected order style around box
+            card.setStyle(selected && !isEmpty() ? SELECTED_BOX_STYLE : BASE_BOX_STYLE);
         }
     }
 }
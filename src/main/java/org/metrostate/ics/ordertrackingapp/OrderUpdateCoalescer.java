@@ -0,0 +1,201 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects order changes from any thread and applies them to the board once per JavaFX pulse.
+ * Each changed order is kept once by its ID however often it changes between frames, and new orders are
+ * queued in the order they were added, so a burst of events becomes a few renders instead of a
+ * runLater per event.
+ *
+ * Every frame gets a work budget: updates are applied in small chunks until the budget is used up and the
+ * rest waits for the next frame, so a large burst is spread over several frames instead of freezing one.
+ * The frame timer only runs while there is something to apply.
+ */
+public class OrderUpdateCoalescer {
+    // about half of a 60 fps frame, the rest is left for layout and drawing
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+    // orders applied between checks of the clock
+    private static final int CHUNK_SIZE = 64;
+
+    /**
+     * Applies a chunk of updates to the board, on the JavaFX thread.
+     */
+    public interface Renderer {
+        /**
+         * @param added     new orders, in the order they were added to the driver
+         * @param changed   orders whose status changed, each listed once
+         */
+        void render(List<Order> added, List<Order> changed);
+    }
+
+    private final Renderer renderer;
+    private final long frameBudgetNanos;
+    private final LongSupplier clock;
+    private final Runnable wake;
+    private AnimationTimer timer;
+
+    // guarded by this
+    private final ArrayDeque<Order> added = new ArrayDeque<>();
+    private final Map<Integer, Order> changed = new LinkedHashMap<>();
+    private boolean scheduled = false;
+
+    /**
+     * Creates a coalescer that renders on the JavaFX pulse with the default frame budget.
+     *
+     * @param renderer Applies the updates to the board
+     */
+    public OrderUpdateCoalescer(Renderer renderer) {
+        this(renderer, DEFAULT_FRAME_BUDGET_NANOS, System::nanoTime, null);
+    }
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param renderer          Applies the updates to the board
+     * @param frameBudgetNanos  How long one frame may spend applying updates
+     * @param clock             Supplies the current time in nanoseconds
+     * @param wake              Called when updates arrive while none are waiting, or null to start the frame timer
+     */
+    OrderUpdateCoalescer(Renderer renderer, long frameBudgetNanos, LongSupplier clock, Runnable wake) {
+        this.renderer = renderer;
+        this.frameBudgetNanos = frameBudgetNanos;
+        this.clock = clock;
+        this.wake = wake != null ? wake : () -> Platform.runLater(this::startTimer);
+    }
+
+    /**
+     * Queues new orders to be shown. May be called from any thread.
+     *
+     * @param orders The orders added to the driver
+     */
+    public void ordersAdded(List<Order> orders) {
+        boolean wakeUp;
+        synchronized (this) {
+            added.addAll(orders);
+            wakeUp = schedule();
+        }
+        if (wakeUp) wake.run();
+    }
+
+    /**
+     * Queues an order to be redrawn, replacing a redraw of the same order still waiting.
+     * May be called from any thread.
+     *
+     * @param order The order that changed
+     */
+    public void orderChanged(Order order) {
+        boolean wakeUp;
+        synchronized (this) {
+            changed.put(order.getOrderID(), order);
+            wakeUp = schedule();
+        }
+        if (wakeUp) wake.run();
+    }
+
+    /**
+     * Drops every update still waiting, such as when all orders are cleared.
+     */
+    public synchronized void clear() {
+        added.clear();
+        changed.clear();
+    }
+
+    /**
+     * @return The number of new and changed orders waiting to be applied
+     */
+    public synchronized int getPendingCount() {
+        return added.size() + changed.size();
+    }
+
+    /**
+     * Stops the frame timer. Updates that arrive later start it again.
+     * Must be called on the JavaFX thread.
+     */
+    public void stop() {
+        synchronized (this) {
+            scheduled = false;
+        }
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Applies waiting updates in chunks until they run out or the frame budget is used up.
+     * Called on every pulse while updates are waiting.
+     *
+     * @return true if updates are left for the next frame
+     */
+    boolean runFrame() {
+        long deadline = clock.getAsLong() + frameBudgetNanos;
+        List<Order> addChunk = new ArrayList<>(CHUNK_SIZE);
+        List<Order> changeChunk = new ArrayList<>(CHUNK_SIZE);
+        do {
+            addChunk.clear();
+            changeChunk.clear();
+            synchronized (this) {
+                // alternate between both kinds so a stream of new orders can't hold back status changes
+                while (addChunk.size() < CHUNK_SIZE && !added.isEmpty()) {
+                    addChunk.add(added.removeFirst());
+                }
+                Iterator<Order> it = changed.values().iterator();
+                while (changeChunk.size() < CHUNK_SIZE && it.hasNext()) {
+                    changeChunk.add(it.next());
+                    it.remove();
+                }
+                if (addChunk.isEmpty() && changeChunk.isEmpty()) {
+                    scheduled = false;
+                    return false;
+                }
+            }
+            renderer.render(addChunk, changeChunk);
+        } while (clock.getAsLong() < deadline);
+        synchronized (this) {
+            if (added.isEmpty() && changed.isEmpty()) {
+                scheduled = false;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Marks the frame timer as needed.
+     *
+     * @return true if it wasn't already
+     */
+    private boolean schedule() {
+        if (scheduled) return false;
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * Starts the frame timer, on the JavaFX thread.
+     */
+    private void startTimer() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    if (!runFrame()) {
+                        // idle until the next update wakes it
+                        stop();
+                    }
+                }
+            };
+        }
+        timer.start();
+    }
+}
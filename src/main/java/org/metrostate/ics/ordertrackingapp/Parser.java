@@ -1,15 +1,9 @@
 package org.metrostate.ics.ordertrackingapp;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.json.JSONTokener;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -21,7 +15,17 @@ import java.util.List;
  * @author Joseph Murtha hw4546dw
  */
 public class Parser {
-    private static int nextOrderNumber = 1;
+    /**
+     * IDs for orders parsed with parseJSONOrder and parseXMLOrder. The application and the
+     * ingest pipeline use their own OrderIdAllocator instead.
+     */
+    private static final OrderIdAllocator ORDER_IDS = new OrderIdAllocator();
+
+    /**
+     * Shared StAX factory for XML orders. It is configured once and only used to create readers,
+     * which is safe to do from multiple parse threads.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
 
     /**
      * set method that should only be called on when recalling current state
@@ -29,108 +33,174 @@ public class Parser {
      * @param orderID   The maximum OrderID from current state
      */
     public static void setNextOrderNumber(int orderID) {
-        Parser.nextOrderNumber = orderID + 1;
+        ORDER_IDS.advancePast(orderID);
     }
 
     /**
      * Parser method creates order object with data populated from given JSON file.
      * Generates a random orderID for the Order.
+     * The file is read with a pull reader straight into FoodItems, no JSONObject tree is built.
      *
      * @param file              JSON file to be read
      * @return                  Order object populated with data from the JSON file
-     * @throws IOException      if the file cannot be read
+     * @throws IOException      if the file cannot be read or is not a valid order
      */
 	public static Order parseJSONOrder(File file) throws IOException {
-        long orderDate;
-        Type orderType;
-        List<FoodItem> foodItemList = new ArrayList<>();
-
-        // use try-with-resources to ensure the FileReader is closed and the file isn't left locked
-        try (FileReader fr = new FileReader(file)) {
-            JSONObject jsonObject = new JSONObject(new JSONTokener(fr));
-            JSONObject orderJson = jsonObject.getJSONObject("order");
-            Object orderDateObj = orderJson.get("order_date");
-            if (orderDateObj instanceof Number) orderDate = ((Number) orderDateObj).longValue();
-            else orderDate = Long.parseLong(String.valueOf(orderDateObj));
-
-
-            String typeStr = orderJson.getString("type");
-            orderType = Type.valueOf(typeStr.toLowerCase());
+        return assignNextOrderNumber(readJSONOrder(file));
+    }
 
-            JSONArray itemArray = orderJson.getJSONArray("items");
-            for (Object o : itemArray) {
-                JSONObject item = (JSONObject) o;
-                int quantity = ((Number) item.get("quantity")).intValue();
-                double price = ((Number) item.get("price")).doubleValue();
-                String name = item.getString("name");
-                foodItemList.add(new FoodItem(name, quantity, price));
+    /**
+     * Reads a FoodHub JSON order file without giving it an order ID.
+     *
+     * @param file              JSON file to be read
+     * @return                  Order object with an order ID of 0
+     * @throws IOException      if the file cannot be read or is not a valid order
+     */
+    static Order readJSONOrder(File file) throws IOException {
+        Long orderDate = null;
+        Type orderType = null;
+        List<FoodItem> foodItemList = null;
+
+        // use try-with-resources so the pooled buffer is always handed back
+        try (JSONPullReader reader = JSONPullReader.open(file)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("order")) {
+                    reader.skipValue();
+                    continue;
+                }
 
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "order_date" -> orderDate = reader.nextLong();
+                        case "type" -> orderType = Type.valueOf(reader.nextString().toLowerCase());
+                        case "items" -> foodItemList = readFoodItems(reader);
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
             }
+            reader.endObject();
         }
 
-        Order order = new Order(getNextOrderNumber(),orderType,orderDate,foodItemList);
-        order.setCompany("FoodHub (JSON)");
+        if (orderDate == null || orderType == null || foodItemList == null) {
+            throw new IOException("Order file " + file.getName() + " is missing order_date, type or items");
+        }
+
+        Order order = new Order(0,orderType,orderDate,foodItemList);
+        order.setCompany(FoodHubJSONAdapter.COMPANY);
         return order;
     }
 
     /**
      * parser method creates order object with data populated from given XML file.
      * Generates a random orderID for the Order using getNextOrder() method
+     * The file is read with a streaming StAX reader in one forward pass.
      *
      * @param file              XML file to be read
      * @return                  Order object populated with data from the XML file
      * @throws IOException      if file can't be read
      */
     public static Order parseXMLOrder(File file) throws IOException {
+        return assignNextOrderNumber(readXMLOrder(file));
+    }
+
+    /**
+     * Reads a GrubStop XML order file without giving it an order ID.
+     *
+     * @param file              XML file to be read
+     * @return                  Order object with an order ID of 0
+     * @throws IOException      if file can't be read
+     */
+    static Order readXMLOrder(File file) throws IOException {
         long orderDate = 0;
         Type orderType = null;
         List<FoodItem> foodItemList = new ArrayList<>();
 
-        try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(file);
-            doc.getDocumentElement().normalize();
-
-            //Reads and grabs order Date and Type
-            NodeList nList = doc.getElementsByTagName("Order");
-            for (int i = 0; i < nList.getLength(); i++) {
-
-                Node node = nList.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element eElement = (Element) node;
-                    orderDate = Long.parseLong(eElement.getAttribute("id"));
-                    String typeStr = eElement.getElementsByTagName("OrderType").item(0).getTextContent();
-                    orderType = Type.valueOf(typeStr.toLowerCase());
+        // single forward pass over the file, no DOM is built
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                boolean needOrderType = false;
+                boolean inItem = false;
+                String itemName = null;
+                Integer quantity = null;
+                Double price = null;
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "Order" -> {
+                                //Reads and grabs order Date, Type comes from the first OrderType after it
+                                orderDate = Long.parseLong(reader.getAttributeValue(null, "id"));
+                                needOrderType = true;
+                            }
+                            case "OrderType" -> {
+                                if (needOrderType) {
+                                    orderType = Type.valueOf(reader.getElementText().trim().toLowerCase());
+                                    needOrderType = false;
+                                }
+                            }
+                            case "Item" -> {
+                                inItem = true;
+                                itemName = reader.getAttributeValue(null, "type");
+                                if (itemName == null) itemName = "";
+                                quantity = null;
+                                price = null;
+                            }
+                            case "Quantity" -> {
+                                if (inItem && quantity == null) {
+                                    quantity = Integer.parseInt(reader.getElementText().trim());
+                                }
+                            }
+                            case "Price" -> {
+                                if (inItem && price == null) {
+                                    price = Double.parseDouble(reader.getElementText().trim());
+                                }
+                            }
+                            default -> { }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT
+                            && inItem && reader.getLocalName().equals("Item")) {
+                        //Creates the FoodItem once all of its fields were read
+                        if (quantity == null || price == null) {
+                            throw new XMLStreamException("Item \"" + itemName + "\" is missing Quantity or Price",
+                                    reader.getLocation());
+                        }
+                        foodItemList.add(new FoodItem(itemName, quantity, price));
+                        inItem = false;
+                    }
                 }
+            } finally {
+                reader.close();
             }
-
-            //Reads and creates FoodItems for foodItemList
-            NodeList nodeList = doc.getElementsByTagName("Item");
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Node node = nodeList.item(i);
-
-                String name;
-                int quantity;
-                double price;
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element eElement = (Element) node;
-                    name = eElement.getAttribute("type");
-                    quantity = Integer.parseInt(eElement.getElementsByTagName("Quantity").item(0).getTextContent());
-                    price = Double.parseDouble(eElement.getElementsByTagName("Price").item(0).getTextContent());
-
-                    foodItemList.add(new FoodItem(name, quantity, price));
-                }
-            }
-
-
-        } catch (ParserConfigurationException | SAXException e) {
+        } catch (XMLStreamException e) {
             throw new RuntimeException(e);
         }
 
+        Order order = new Order (0, orderType, orderDate, foodItemList);
+        order.setCompany(GrubStopXMLAdapter.COMPANY);
+        return order;
+    }
 
-        Order order = new Order (getNextOrderNumber(), orderType, orderDate, foodItemList);
-        order.setCompany("GrubStop (XML)");
+    /**
+     * Parses a saved order file written in any OrderCodec format, picked by the file's extension.
+     * This is used to restore application state on startup.
+     *
+     * @param file              saved order file to be read
+     * @return                  Order object with restored state
+     * @throws IOException      if file can't be read or isn't a saved order format
+     */
+    public static Order parseSavedOrder(File file) throws IOException {
+        OrderCodec codec = OrderCodec.forFile(file);
+        if (codec == null) {
+            throw new IOException("Unsupported saved order file: " + file.getName());
+        }
+        Order order = codec.read(file);
+        order.setCompany(restoredCompany(order.getCompany()));
         return order;
     }
 
@@ -138,69 +208,158 @@ public class Parser {
      * Parses a saved JSON order file that includes OrderID and Status.
      * This is a separate method from parseJSONOrder to handle extra saved fields such as OrderID, Status, and Company.
      * This is used to restore application state on startup.
+     * Like parseJSONOrder, the file is read with a pull reader instead of a JSONObject tree.
      *
      * @param file              JSON file to be read
      * @return                  Order object with restored state
      * @throws IOException      if file can't be read
      */
     public static Order parseSavedJSONOrder(File file) throws IOException {
-        int orderId;
-        long date;
-        double totalPrice;
-        Type orderType;
-        Status orderStatus;
-        String originalCompany = null;
-        List<FoodItem> foodItemList = new ArrayList<>();
-
-        try (FileReader reader = new FileReader(file)) {
-            JSONObject jsonObject = new JSONObject(new JSONTokener(reader));
-
-            orderId = jsonObject.getInt("orderID");
-            date = jsonObject.getLong("date");
-            totalPrice = jsonObject.getDouble("totalPrice");
-
-            String typeStr = jsonObject.getString("type");
-            orderType = Type.valueOf(typeStr.toLowerCase());
-
-            String statusStr = jsonObject.getString("status");
-            orderStatus = Status.valueOf(statusStr);
+        Order order = readSavedJSONOrder(file);
+        order.setCompany(restoredCompany(order.getCompany()));
+        return order;
+    }
 
-            if (jsonObject.has("company") && !jsonObject.isNull("company")) {
-                originalCompany = jsonObject.getString("company");
+    /**
+     * Reads a saved JSON order file as it was written, without marking the company as restored.
+     *
+     * @param file              JSON file to be read
+     * @return                  Order object with the saved state
+     * @throws IOException      if file can't be read
+     */
+    static Order readSavedJSONOrder(File file) throws IOException {
+        Integer orderId = null;
+        Long date = null;
+        Double totalPrice = null;
+        Type orderType = null;
+        Status orderStatus = null;
+        String originalCompany = null;
+        List<FoodItem> foodItemList = null;
+
+        try (JSONPullReader reader = JSONPullReader.open(file)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "orderID" -> orderId = reader.nextInt();
+                    case "date" -> date = reader.nextLong();
+                    case "totalPrice" -> totalPrice = reader.nextDouble();
+                    case "type" -> orderType = Type.valueOf(reader.nextString().toLowerCase());
+                    case "status" -> orderStatus = Status.valueOf(reader.nextString());
+                    case "company" -> {
+                        if (reader.peekNull()) {
+                            reader.nextNull();
+                        } else {
+                            originalCompany = reader.nextString();
+                        }
+                    }
+                    case "foodList" -> foodItemList = readFoodItems(reader);
+                    default -> reader.skipValue();
+                }
             }
+            reader.endObject();
+        }
 
-            JSONArray itemArray = jsonObject.getJSONArray("foodList");
-            for (Object o : itemArray) {
-                JSONObject item = (JSONObject) o;
-                int quantity = item.getInt("quantity");
-                double price = item.getDouble("price");
-                String name = item.getString("name");
-                foodItemList.add(new FoodItem(name, quantity, price));
-            }
+        if (orderId == null || date == null || totalPrice == null || orderType == null
+                || orderStatus == null || foodItemList == null) {
+            throw new IOException("Saved order file " + file.getName() + " is missing a required field");
         }
 
         Order order = new Order(orderId, date, totalPrice, orderType, orderStatus, foodItemList);
+        order.setCompany(originalCompany);
+        return order;
+    }
 
+    /**
+     * Returns the company name shown for an order restored from a previous run.
+     *
+     * @param originalCompany   The company saved with the order, may be null
+     * @return                  The company name marked as restored
+     */
+    static String restoredCompany(String originalCompany) {
         if (originalCompany != null && !originalCompany.isEmpty()) {
             if (originalCompany.startsWith("Restored - ")) {
-                order.setCompany(originalCompany);
-            } else {
-                order.setCompany("Restored - " + originalCompany);
+                return originalCompany;
             }
-        } else {
-            order.setCompany("Restored - Unknown");
+            return "Restored - " + originalCompany;
         }
-        
+        return "Restored - Unknown";
+    }
+
+    /**
+     * Reads a JSON array of food items ({"name", "quantity", "price"}) into FoodItems.
+     *
+     * @param reader            reader positioned at the start of the array
+     * @return                  list of FoodItems in file order
+     * @throws IOException      if an item is malformed or missing a field
+     */
+    private static List<FoodItem> readFoodItems(JSONPullReader reader) throws IOException {
+        List<FoodItem> foodItemList = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            int quantity = 0;
+            double price = 0;
+            boolean hasQuantity = false;
+            boolean hasPrice = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name" -> name = reader.nextString();
+                    case "quantity" -> {
+                        quantity = reader.nextInt();
+                        hasQuantity = true;
+                    }
+                    case "price" -> {
+                        price = reader.nextDouble();
+                        hasPrice = true;
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (name == null || !hasQuantity || !hasPrice) {
+                throw new IOException("Food item is missing name, quantity or price");
+            }
+            foodItemList.add(new FoodItem(name, quantity, price));
+        }
+        reader.endArray();
+        return foodItemList;
+    }
+
+    /**
+     * Creates the StAX factory used by parseXMLOrder.
+     * DTDs and external entities are turned off since order files never use them.
+     *
+     * @return configured XMLInputFactory
+     */
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Gives a parsed order the next order ID.
+     *
+     * @param order     order read by readOrderFile
+     * @return          the same order
+     */
+    static Order assignNextOrderNumber(Order order) {
+        order.setOrderID(getNextOrderNumber());
         return order;
     }
 
     /**
      * Static helper method
-     * returns next order number and increments the counter
+     * returns next order number and increments the counter, safe to call from several parse threads
      * @return int, next Order ID number
      */
-    private static int getNextOrderNumber(){
-        return nextOrderNumber++;
+    static int getNextOrderNumber(){
+        return ORDER_IDS.next();
     }
 
     /**
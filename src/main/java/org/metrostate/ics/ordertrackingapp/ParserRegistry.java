@@ -0,0 +1,219 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes each order file to the OrderFeedAdapter that can read it.
+ * The adapter is chosen by sniffing the file's first bytes, so a file is read by the right
+ * adapter even if its extension is misleading; when several adapters recognise the content,
+ * the one that also claims the extension wins. Extensions only decide which files the
+ * listener watches.
+ *
+ * Every adapter has its own counters (files, orders, failures, bytes and time spent reading),
+ * updated without locking so parse threads don't contend on them.
+ */
+public class ParserRegistry {
+    private static final int SNIFF_BYTES = 256;
+
+    /**
+     * Throughput of one adapter since the registry was created.
+     *
+     * @param company   The adapter's company name
+     * @param files     Files read successfully
+     * @param orders    Orders read from those files
+     * @param failures  Files the adapter could not read
+     * @param bytes     Bytes in the files read
+     * @param nanos     Time spent reading, summed over all threads
+     */
+    public record FeedMetrics(String company, long files, long orders, long failures, long bytes, long nanos) {
+        /**
+         * @return Orders read per second of reading time
+         */
+        public double ordersPerSecond() {
+            return nanos == 0 ? 0 : orders * 1e9 / nanos;
+        }
+
+        /**
+         * @return Megabytes read per second of reading time
+         */
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1e9 / nanos / (1024 * 1024);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d files, %d orders, %d failed, %.0f orders/s, %.1f MB/s",
+                    company, files, orders, failures, ordersPerSecond(), megabytesPerSecond());
+        }
+    }
+
+    /**
+     * Counters for one adapter.
+     */
+    private static final class Counters {
+        private final LongAdder files = new LongAdder();
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    private final List<OrderFeedAdapter> adapters;
+    private final Map<OrderFeedAdapter, Counters> counters = new LinkedHashMap<>();
+    private final Set<String> extensions = new HashSet<>();
+
+    /**
+     * Creates a registry of the given adapters.
+     *
+     * @param adapters  The adapters, in the order they are tried
+     */
+    public ParserRegistry(List<OrderFeedAdapter> adapters) {
+        this.adapters = List.copyOf(adapters);
+        for (OrderFeedAdapter adapter : this.adapters) {
+            counters.put(adapter, new Counters());
+            for (String extension : adapter.fileExtensions()) {
+                extensions.add(extension.toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * Returns the registry of every adapter installed with ServiceLoader, loaded once.
+     *
+     * @return The shared registry
+     */
+    public static ParserRegistry installed() {
+        return Installed.REGISTRY;
+    }
+
+    /**
+     * Holds the shared registry, so the adapters are only looked up when it is first used.
+     */
+    private static final class Installed {
+        private static final ParserRegistry REGISTRY = load();
+
+        private static ParserRegistry load() {
+            List<OrderFeedAdapter> adapters = new ArrayList<>();
+            for (OrderFeedAdapter adapter : ServiceLoader.load(OrderFeedAdapter.class)) {
+                adapters.add(adapter);
+            }
+            if (adapters.isEmpty()) {
+                // no service declarations on the path, fall back to the built-in feeds
+                adapters.add(new FoodHubJSONAdapter());
+                adapters.add(new GrubStopXMLAdapter());
+            }
+            return new ParserRegistry(adapters);
+        }
+    }
+
+    /**
+     * @return The adapters, in the order they are tried
+     */
+    public List<OrderFeedAdapter> getAdapters() {
+        return adapters;
+    }
+
+    /**
+     * Tells whether a file name has an extension some adapter reads. Doesn't touch the file.
+     *
+     * @param fileName  The file name
+     * @return          true if the file should be picked up as an order file
+     */
+    public boolean isOrderFile(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && extensions.contains(fileName.substring(dot).toLowerCase());
+    }
+
+    /**
+     * Picks the adapter for a file from its first bytes.
+     *
+     * @param file          The order file
+     * @return              The adapter to read it with
+     * @throws IOException  if the file can't be read or no adapter recognises it
+     */
+    public OrderFeedAdapter adapterFor(File file) throws IOException {
+        byte[] head = new byte[SNIFF_BYTES];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while (length < head.length && (read = in.read(head, length, head.length - length)) != -1) {
+                length += read;
+            }
+        }
+
+        String name = file.getName().toLowerCase();
+        OrderFeedAdapter match = null;
+        for (OrderFeedAdapter adapter : adapters) {
+            if (adapter.sniff(head, length)) {
+                if (hasExtension(adapter, name)) {
+                    return adapter;
+                }
+                if (match == null) {
+                    match = adapter;
+                }
+            }
+        }
+        if (match == null) {
+            throw new IOException("No order feed recognises " + file.getName());
+        }
+        return match;
+    }
+
+    /**
+     * Reads every order in a file with the adapter its content calls for, and counts the work.
+     *
+     * @param file          The order file
+     * @return              The orders in the file, without IDs
+     * @throws IOException  if the file can't be read or no adapter recognises it
+     */
+    public List<Order> parse(File file) throws IOException {
+        OrderFeedAdapter adapter = adapterFor(file);
+        Counters counter = counters.get(adapter);
+        long started = System.nanoTime();
+        try {
+            List<Order> orders = adapter.read(file);
+            counter.nanos.add(System.nanoTime() - started);
+            counter.files.increment();
+            counter.orders.add(orders.size());
+            counter.bytes.add(file.length());
+            return orders;
+        } catch (IOException | RuntimeException e) {
+            counter.nanos.add(System.nanoTime() - started);
+            counter.failures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The throughput of every adapter, in the order they are tried
+     */
+    public List<FeedMetrics> getMetrics() {
+        List<FeedMetrics> metrics = new ArrayList<>(adapters.size());
+        for (Map.Entry<OrderFeedAdapter, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            metrics.add(new FeedMetrics(entry.getKey().company(), c.files.sum(), c.orders.sum(),
+                    c.failures.sum(), c.bytes.sum(), c.nanos.sum()));
+        }
+        return metrics;
+    }
+
+    private static boolean hasExtension(OrderFeedAdapter adapter, String lowerCaseName) {
+        for (String extension : adapter.fileExtensions()) {
+            if (lowerCaseName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
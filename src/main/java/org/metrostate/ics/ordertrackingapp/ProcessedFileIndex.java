@@ -0,0 +1,439 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers which order files have already been ingested, keyed by file name plus a hash of the contents,
+ * so the same file is never ingested twice, even across restarts. A file with a reused name but new
+ * contents counts as new.
+ *
+ * Each entry is a 64-bit fingerprint and the time it was seen, kept in an open-addressing table of
+ * primitive longs. Entries older than the maximum age are evicted, and the oldest are dropped if there
+ * are more than the maximum number of entries, so memory stays bounded during long uptimes.
+ * New entries are appended to the index file as they are added; the file is rewritten without expired
+ * entries when it is opened. Without an index file the index only lasts for the session.
+ *
+ * A file is only recorded with markProcessed() once its orders are safely saved, so a crash in between
+ * means it is ingested again on the next start rather than lost. Until then the listener claim()s it,
+ * which keeps it from being handed off twice in this session without recording anything on disk.
+ * markProcessed() records the fingerprint taken when the file was claimed, so the file isn't read
+ * a second time and a change in between can't record contents that were never ingested.
+ * A file that fails to parse stays claimed, so the same bytes aren't retried until the next start.
+ *
+ * Hashing means reading the file, so isKnown() first checks a small cache of recently claimed or
+ * confirmed files by size and modified time, letting rescans skip them without reading them.
+ */
+public class ProcessedFileIndex {
+    public static final String INDEX_FILE = "processed-files.idx";
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    public static final int DEFAULT_MAX_ENTRIES = 200_000;
+
+    private static final int MAGIC = 0x50464958; // "PFIX"
+    private static final short VERSION = 1;
+    private static final int RECORD_SIZE = 16;
+    private static final int RECENT_FILES = 50_000;
+
+    private final File indexFile;
+    private final long maxAgeMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    // open addressing, 0 marks an empty slot; guarded by this
+    private long[] fingerprints = new long[1024];
+    private long[] seenMillis = new long[1024];
+    private int size = 0;
+    // fingerprints handed off this session but not recorded yet, and the one each path was claimed with;
+    // guarded by this
+    private final Set<Long> claimed = new HashSet<>();
+    private final Map<String, Long> claimedPaths = new HashMap<>();
+
+    // path -> size and modified time of files confirmed this session, least recently used first
+    private final Map<String, long[]> recentFiles = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return size() > RECENT_FILES;
+        }
+    };
+
+    private FileChannel appendChannel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * Creates an index that only lasts for this session.
+     */
+    public ProcessedFileIndex() {
+        this(null, DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    /**
+     * Opens a persistent index, loading the entries that haven't expired.
+     *
+     * @param indexFile     The file the index is kept in
+     * @throws IOException  if the index file can't be read or written
+     */
+    public ProcessedFileIndex(File indexFile) throws IOException {
+        this(indexFile, DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+        load();
+    }
+
+    /**
+     * Opens an index with the given limits.
+     *
+     * @param indexFile     The file the index is kept in, or null for a session-only index
+     * @param maxAgeMillis  How long an entry is remembered
+     * @param maxEntries    The most entries kept
+     * @param clock         Supplies the current time in milliseconds
+     */
+    ProcessedFileIndex(File indexFile, long maxAgeMillis, int maxEntries, LongSupplier clock) {
+        this.indexFile = indexFile;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Opens a persistent index with the given limits, loading the entries that haven't expired.
+     */
+    static ProcessedFileIndex open(File indexFile, long maxAgeMillis, int maxEntries, LongSupplier clock) throws IOException {
+        ProcessedFileIndex index = new ProcessedFileIndex(indexFile, maxAgeMillis, maxEntries, clock);
+        index.load();
+        return index;
+    }
+
+    /**
+     * Cheap check, without reading the file, for a file already claimed or confirmed this session
+     * whose size and modified time haven't changed since.
+     *
+     * @param file  The order file
+     * @return      true if the file is known to be handled; false means "not sure"
+     */
+    public synchronized boolean isKnown(Path file) {
+        long[] seen = recentFiles.get(file.toString());
+        if (seen == null) {
+            return false;
+        }
+        long[] current = stat(file);
+        return current != null && Arrays.equals(seen, current);
+    }
+
+    /**
+     * Claims a file for ingest in this session, unless it was already processed or claimed.
+     * Nothing is written to the index file; call markProcessed() once the file's orders are saved.
+     *
+     * @param file  The order file
+     * @return      true if the file should be ingested, false if the same name and contents were already
+     *              processed or claimed, or the file can't be read
+     */
+    public boolean claim(Path file) {
+        long[] before = stat(file);
+        long fingerprint;
+        try {
+            fingerprint = fingerprint(file);
+        } catch (IOException e) {
+            return false;
+        }
+
+        synchronized (this) {
+            if (before != null) {
+                recentFiles.put(file.toString(), before);
+            }
+            if (indexOf(fingerprint) >= 0 || !claimed.add(fingerprint)) {
+                return false;
+            }
+            claimedPaths.put(file.toString(), fingerprint);
+            return true;
+        }
+    }
+
+    /**
+     * Records a file as processed, in the index file too if there is one.
+     * A claimed file is recorded with the fingerprint it was claimed with, without reading it again.
+     * Call sync() afterwards to make the records durable.
+     *
+     * @param file  The order file
+     * @return      true if the file is new, false if the same name and contents were already processed
+     *              or the file can't be read
+     */
+    public boolean markProcessed(Path file) {
+        Long claimedFingerprint;
+        synchronized (this) {
+            claimedFingerprint = claimedPaths.remove(file.toString());
+        }
+        long fingerprint;
+        long[] before = null;
+        if (claimedFingerprint != null) {
+            fingerprint = claimedFingerprint;
+        } else {
+            before = stat(file);
+            try {
+                fingerprint = fingerprint(file);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        synchronized (this) {
+            // a claimed file's size and time were cached when it was claimed, matching its fingerprint
+            if (before != null) {
+                recentFiles.put(file.toString(), before);
+            }
+            claimed.remove(fingerprint);
+            if (indexOf(fingerprint) >= 0) {
+                return false;
+            }
+            long now = clock.getAsLong();
+            insert(fingerprint, now);
+            if (size > maxEntries) {
+                evict(now);
+            }
+            append(fingerprint, now);
+            return true;
+        }
+    }
+
+    /**
+     * Forces the records appended so far to disk, such as once a batch of files was marked after their
+     * orders were saved. Without this a crash could forget files whose orders are already stored,
+     * and they would be ingested again.
+     */
+    public synchronized void sync() {
+        if (appendChannel != null) {
+            try {
+                appendChannel.force(false);
+            } catch (IOException e) {
+                System.err.println("Error syncing processed file index: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drops entries older than the maximum age.
+     */
+    public synchronized void evictExpired() {
+        evict(clock.getAsLong());
+    }
+
+    /**
+     * @return The number of files remembered
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Forces and closes the index file. Does nothing if it is already closed.
+     */
+    public synchronized void close() {
+        if (appendChannel != null) {
+            try {
+                appendChannel.force(false);
+                appendChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing processed file index: " + e.getMessage());
+            }
+            appendChannel = null;
+        }
+    }
+
+    /**
+     * Reads the index file, keeping entries that haven't expired, and rewrites it without the rest.
+     */
+    private synchronized void load() throws IOException {
+        long now = clock.getAsLong();
+        if (indexFile.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                if (in.readInt() == MAGIC && in.readShort() == VERSION) {
+                    while (true) {
+                        long fingerprint = in.readLong();
+                        long seen = in.readLong();
+                        if (now - seen <= maxAgeMillis && indexOf(fingerprint) < 0) {
+                            insert(fingerprint, seen);
+                        }
+                    }
+                }
+                System.err.println(indexFile.getName() + " is not a processed file index, starting a new one");
+            } catch (EOFException e) {
+                // end of the file; a partly written last record is dropped by the rewrite below
+            }
+        }
+        if (size > maxEntries) {
+            evict(now);
+        }
+        rewrite();
+    }
+
+    /**
+     * Writes every live entry to a new index file that replaces the old one, then reopens it for appending.
+     */
+    private void rewrite() throws IOException {
+        close();
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File temp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            for (int i = 0; i < fingerprints.length; i++) {
+                if (fingerprints[i] != 0) {
+                    out.writeLong(fingerprints[i]);
+                    out.writeLong(seenMillis[i]);
+                }
+            }
+        }
+        Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        appendChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void append(long fingerprint, long seen) {
+        if (appendChannel == null) {
+            return;
+        }
+        record.clear();
+        record.putLong(fingerprint).putLong(seen).flip();
+        try {
+            while (record.hasRemaining()) {
+                appendChannel.write(record);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing processed file index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the table without expired entries, and without the oldest ones if it is over the limit.
+     * Going over the limit evicts down to 90% of it, so the sort and rebuild happen once per
+     * tenth of maxEntries new files rather than on every file once the index is full.
+     * Evicted entries stay in the index file until it is next opened, where they are dropped again.
+     */
+    private void evict(long now) {
+        long cutoff = now - maxAgeMillis;
+        int keep = Integer.MAX_VALUE;
+        if (size > maxEntries) {
+            keep = Math.max(1, maxEntries - maxEntries / 10);
+            // raise the cutoff so only the newest entries survive
+            long[] times = new long[size];
+            int n = 0;
+            for (int i = 0; i < fingerprints.length; i++) {
+                if (fingerprints[i] != 0) {
+                    times[n++] = seenMillis[i];
+                }
+            }
+            Arrays.sort(times);
+            cutoff = Math.max(cutoff, times[size - keep]);
+        }
+
+        long[] oldFingerprints = fingerprints;
+        long[] oldSeen = seenMillis;
+        fingerprints = new long[oldFingerprints.length];
+        seenMillis = new long[oldSeen.length];
+        size = 0;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            // entries seen at the same time as the cutoff could go over, so stop at keep
+            if (oldFingerprints[i] != 0 && oldSeen[i] >= cutoff && size < keep) {
+                insert(oldFingerprints[i], oldSeen[i]);
+            }
+        }
+    }
+
+    private int indexOf(long fingerprint) {
+        int mask = fingerprints.length - 1;
+        for (int i = slot(fingerprint, mask); fingerprints[i] != 0; i = (i + 1) & mask) {
+            if (fingerprints[i] == fingerprint) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long fingerprint, long seen) {
+        if ((size + 1) * 2 > fingerprints.length) {
+            grow();
+        }
+        int mask = fingerprints.length - 1;
+        int i = slot(fingerprint, mask);
+        while (fingerprints[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        fingerprints[i] = fingerprint;
+        seenMillis[i] = seen;
+        size++;
+    }
+
+    private void grow() {
+        long[] oldFingerprints = fingerprints;
+        long[] oldSeen = seenMillis;
+        fingerprints = new long[oldFingerprints.length * 2];
+        seenMillis = new long[oldSeen.length * 2];
+        size = 0;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != 0) {
+                insert(oldFingerprints[i], oldSeen[i]);
+            }
+        }
+    }
+
+    private static int slot(long fingerprint, int mask) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    /**
+     * Hashes the file's name and contents into a non-zero 64-bit fingerprint.
+     */
+    static long fingerprint(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+        digest.update(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        long fingerprint = ByteBuffer.wrap(digest.digest()).getLong();
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static long[] stat(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new long[] {attributes.size(), attributes.lastModifiedTime().toMillis()};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
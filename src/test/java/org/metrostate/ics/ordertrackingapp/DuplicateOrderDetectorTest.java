@@ -0,0 +1,61 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateOrderDetectorTest {
+
+    private static Order order(int id, long date, String company, FoodItem... items) {
+        Order order = new Order(id, Type.pickup, date, List.of(items));
+        order.setCompany(company);
+        return order;
+    }
+
+    @Test
+    void findsTheSameOrderUnderANewId() {
+        //arrange
+        DuplicateOrderDetector detector = new DuplicateOrderDetector();
+        detector.record(order(1, 100L, "FoodHub (JSON)",
+                new FoodItem("Fries", 1, 3.09), new FoodItem("Burger", 2, 8.50)));
+
+        //assert items in a different order still match
+        assertEquals(1, detector.findDuplicate(order(2, 100L, "FoodHub (JSON)",
+                new FoodItem("Burger", 2, 8.50), new FoodItem("Fries", 1, 3.09))));
+        assertEquals(-1, detector.findDuplicate(order(3, 100L, "FoodHub (JSON)",
+                new FoodItem("Burger", 3, 8.50), new FoodItem("Fries", 1, 3.09))));
+        assertEquals(-1, detector.findDuplicate(order(4, 101L, "FoodHub (JSON)",
+                new FoodItem("Burger", 2, 8.50), new FoodItem("Fries", 1, 3.09))));
+        assertEquals(-1, detector.findDuplicate(order(5, 100L, "GrubStop (XML)",
+                new FoodItem("Burger", 2, 8.50), new FoodItem("Fries", 1, 3.09))));
+    }
+
+    @Test
+    void restoredOrdersMatchTheirOriginalFeed() {
+        //arrange
+        DuplicateOrderDetector detector = new DuplicateOrderDetector();
+        detector.record(order(1, 100L, Parser.restoredCompany("FoodHub (JSON)"), new FoodItem("Fries", 1, 3.09)));
+
+        //assert
+        assertEquals(1, detector.findDuplicate(order(2, 100L, "FoodHub (JSON)", new FoodItem("Fries", 1, 3.09))));
+    }
+
+    @Test
+    void forgetsOrdersOutsideTheWindow() {
+        //arrange
+        AtomicLong now = new AtomicLong(0);
+        DuplicateOrderDetector detector = new DuplicateOrderDetector(1000, now::get);
+        detector.record(order(1, 100L, "FoodHub (JSON)", new FoodItem("Fries", 1, 3.09)));
+        now.set(500);
+        detector.record(order(2, 200L, "FoodHub (JSON)", new FoodItem("Fries", 1, 3.09)));
+        now.set(1200);
+
+        //assert
+        assertEquals(-1, detector.findDuplicate(order(3, 100L, "FoodHub (JSON)", new FoodItem("Fries", 1, 3.09))));
+        assertEquals(2, detector.findDuplicate(order(4, 200L, "FoodHub (JSON)", new FoodItem("Fries", 1, 3.09))));
+        assertEquals(1, detector.size());
+    }
+}
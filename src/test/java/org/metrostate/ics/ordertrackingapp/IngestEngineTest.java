@@ -0,0 +1,125 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestEngineTest {
+
+    private static File writeJSONOrder(File dir, String name, long date) throws IOException {
+        File file = new File(dir, name);
+        try (FileWriter fw = new FileWriter(file)) {
+            fw.write("{\"order\": {\"type\": \"pickup\", \"order_date\": " + date
+                    + ", \"items\": [{\"name\": \"Fries\", \"quantity\": 1, \"price\": 3.09}]}}");
+        }
+        return file;
+    }
+
+    @Test
+    void storesWatchedFilesWithoutJavaFX(@TempDir File dir) throws Exception {
+        //arrange
+        writeJSONOrder(dir, "order_1.json", 100L);
+        OrderDriver driver = new OrderDriver();
+        List<Order> notified = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        IngestEngine engine = new IngestEngine(dir.getPath(), driver, new OrderIdAllocator(), null, null);
+        engine.addSubscriber((orders, failed, duplicates) -> {
+            // the batch is already in the driver when subscribers hear about it
+            if (orders.stream().allMatch(o -> driver.getOrder(o.getOrderID()) != null)) {
+                notified.addAll(orders);
+            }
+            done.countDown();
+        });
+
+        engine.start();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        engine.stop();
+
+        //assert
+        assertEquals(1, driver.getOrderCount());
+        assertEquals(1, notified.size());
+        assertEquals(100L, notified.getFirst().getDate());
+    }
+
+    @Test
+    void reportsOrdersAlreadyInTheDriverAsDuplicates(@TempDir File dir) throws Exception {
+        //arrange
+        OrderDriver driver = new OrderDriver();
+        Order restored = new FoodHubJSONAdapter().read(writeJSONOrder(dir, "order_1.json", 100L)).getFirst();
+        restored.setOrderID(7);
+        driver.addOrder(restored);
+        List<OrderIngestPipeline.Duplicate> reported = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        IngestEngine engine = new IngestEngine(null, driver, new OrderIdAllocator(), null, null);
+        engine.addSubscriber((orders, failed, duplicates) -> {
+            reported.addAll(duplicates);
+            done.countDown();
+        });
+
+        engine.submit(writeJSONOrder(dir, "resent.json", 100L));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        engine.stop();
+
+        //assert
+        assertEquals(1, driver.getOrderCount());
+        assertEquals(1, reported.size());
+        assertEquals(7, reported.getFirst().originalOrderId());
+    }
+
+    @Test
+    void marksOnlyStoredFilesAsProcessed(@TempDir File dir) throws Exception {
+        //arrange
+        File good = writeJSONOrder(dir, "order_1.json", 100L);
+        File bad = new File(dir, "order_2.json");
+        try (FileWriter fw = new FileWriter(bad)) {
+            fw.write("not json");
+        }
+        ProcessedFileIndex processed = new ProcessedFileIndex();
+        CountDownLatch done = new CountDownLatch(1);
+        IngestEngine engine = new IngestEngine(null, new OrderDriver(), new OrderIdAllocator(), processed, null);
+        engine.addSubscriber((orders, failed, duplicates) -> done.countDown());
+
+        engine.submit(good);
+        engine.submit(bad);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        engine.stop();
+
+        //assert the stored file was marked, the one that failed was not
+        assertFalse(processed.markProcessed(good.toPath()));
+        assertTrue(processed.markProcessed(bad.toPath()));
+    }
+
+    @Test
+    void stopWhileBusyLosesNothing(@TempDir File dir) throws Exception {
+        //arrange
+        int fileCount = 100;
+        OrderDriver driver = new OrderDriver();
+        IngestEngine engine = new IngestEngine(null, driver, new OrderIdAllocator(), null, null);
+        // a slow subscriber keeps files queued behind it when stop() is called
+        engine.addSubscriber((orders, failed, duplicates) -> {
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < fileCount; i++) {
+            engine.submit(writeJSONOrder(dir, "order_" + i + ".json", 1000L + i));
+        }
+        engine.stop();
+
+        //assert every submitted file was stored before stop() returned
+        assertEquals(fileCount, driver.getOrderCount());
+    }
+}
@@ -0,0 +1,102 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONPullReaderTest {
+
+    @Test
+    void readsNestedValues() throws IOException {
+        try (JSONPullReader reader = JSONPullReader.of("{\"a\": {\"b\": [1, 2.5, \"3\"]}, \"c\": \"x\\n\\u0041\"}")) {
+            reader.beginObject();
+            assertTrue(reader.hasNext());
+            assertEquals("a", reader.nextName());
+            reader.beginObject();
+            assertEquals("b", reader.nextName());
+            reader.beginArray();
+            assertTrue(reader.hasNext());
+            assertEquals(1, reader.nextInt());
+            assertTrue(reader.hasNext());
+            assertEquals(2.5, reader.nextDouble());
+            assertTrue(reader.hasNext());
+            assertEquals(3L, reader.nextLong());
+            assertFalse(reader.hasNext());
+            reader.endArray();
+            reader.endObject();
+            assertTrue(reader.hasNext());
+            assertEquals("c", reader.nextName());
+            assertEquals("x\nA", reader.nextString());
+            assertFalse(reader.hasNext());
+            reader.endObject();
+        }
+    }
+
+    @Test
+    void skipValue() throws IOException {
+        try (JSONPullReader reader = JSONPullReader.of("{\"skip\": {\"x\": [true, false, null, {}]}, \"keep\": 7}")) {
+            reader.beginObject();
+            assertEquals("skip", reader.nextName());
+            reader.skipValue();
+            assertTrue(reader.hasNext());
+            assertEquals("keep", reader.nextName());
+            assertEquals(7, reader.nextInt());
+            reader.endObject();
+        }
+    }
+
+    @Test
+    void nonAsciiNames() throws IOException {
+        try (JSONPullReader reader = JSONPullReader.of("[\"Crème brûlée\"]")) {
+            reader.beginArray();
+            assertTrue(reader.hasNext());
+            assertEquals("Crème brûlée", reader.nextString());
+            reader.endArray();
+        }
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IOException.class, () -> {
+            try (JSONPullReader reader = JSONPullReader.of("[1 2]")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.nextInt();
+                }
+            }
+        });
+        assertThrows(IOException.class, () -> {
+            try (JSONPullReader reader = JSONPullReader.of("{\"a\": \"unterminated}")) {
+                reader.beginObject();
+                reader.nextName();
+                reader.nextString();
+            }
+        });
+    }
+
+    @Test
+    void stringReadersDontShrinkThePooledBuffer(@TempDir File dir) throws IOException {
+        //arrange
+        File file = new File(dir, "order.json");
+        try (FileWriter fw = new FileWriter(file)) {
+            fw.write("{\"keep\": 7}");
+        }
+
+        // an empty document would leave a zero-length buffer in the pool if it were handed back
+        JSONPullReader.of("").close();
+        int value;
+        try (JSONPullReader reader = JSONPullReader.open(file)) {
+            reader.beginObject();
+            reader.nextName();
+            value = reader.nextInt();
+        }
+
+        //assert
+        assertEquals(7, value);
+    }
+}
@@ -0,0 +1,89 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCodecTest {
+
+    private static Order sampleOrder() {
+        Order order = new Order(4242, 1700000000123L, 12.37, Type.delivery, Status.inProgress,
+                List.of(new FoodItem("Fries", 2, 3.09), new FoodItem("Soda", 1, 1.99), new FoodItem("Fries", 1, 3.09)));
+        order.setCompany("GrubStop");
+        return order;
+    }
+
+    private static Order roundTrip(OrderCodec codec, File dir) throws IOException {
+        File file = new File(dir, "Saved_Order4242" + codec.fileExtension());
+        try (OutputStream out = new FileOutputStream(file)) {
+            codec.write(sampleOrder(), out);
+        }
+        return codec.read(file);
+    }
+
+    @Test
+    void binaryRoundTrip(@TempDir File dir) throws IOException {
+        //arrange
+        Order order = roundTrip(OrderCodec.BINARY, dir);
+
+        //assert
+        assertEquals(4242, order.getOrderID());
+        assertEquals(1700000000123L, order.getDate());
+        assertEquals(12.37, order.getTotalPrice());
+        assertEquals(Type.delivery, order.getType());
+        assertEquals(Status.inProgress, order.getStatus());
+        assertEquals("GrubStop", order.getCompany());
+        assertEquals(3, order.getFoodList().size());
+        assertEquals("Fries", order.getFoodList().get(2).getName());
+        assertEquals(3.09, order.getFoodList().get(2).getPrice());
+        assertEquals(2, order.getFoodList().getFirst().getQuantity());
+    }
+
+    @Test
+    void binaryIsSmallerThanJSON(@TempDir File dir) throws IOException {
+        //arrange
+        roundTrip(OrderCodec.JSON, dir);
+        roundTrip(OrderCodec.BINARY, dir);
+
+        //assert
+        long json = new File(dir, "Saved_Order4242.json").length();
+        long binary = new File(dir, "Saved_Order4242.order").length();
+        assertTrue(binary * 3 < json, binary + " bytes vs " + json);
+    }
+
+    @Test
+    void directorySettingPicksTheCodec(@TempDir File dir) throws IOException {
+        //arrange
+        try (FileWriter fw = new FileWriter(new File(dir, OrderCodec.SETTINGS_FILE))) {
+            fw.write("codec=binary\n");
+        }
+        OrderDriver.orderExportJSON(sampleOrder(), dir.getPath());
+
+        //assert
+        assertSame(OrderCodec.BINARY, OrderCodec.forDirectory(dir));
+        File saved = new File(dir, "Saved_Order4242.order");
+        assertTrue(saved.exists());
+        Order restored = Parser.parseSavedOrder(saved);
+        assertEquals("Restored - GrubStop", restored.getCompany());
+    }
+
+    @Test
+    void rejectsTruncatedBinary(@TempDir File dir) throws IOException {
+        //arrange
+        File file = new File(dir, "Saved_Order1.order");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {'O', 'B', 1, (byte) 0x81});
+        }
+
+        //assert
+        assertThrows(IOException.class, () -> OrderCodec.BINARY.read(file));
+    }
+}
@@ -0,0 +1,46 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDetailCacheTest {
+
+    private static Order order(int id) {
+        return new Order(id, Type.pickup, 1758027600000L, List.of(new FoodItem("Fries", 2, 3.09)));
+    }
+
+    @Test
+    void reusesTextUntilStatusChanges() {
+        //arrange
+        OrderDetailCache cache = new OrderDetailCache();
+        Order order = order(1);
+
+        String first = cache.getText(order);
+        String again = cache.getText(order);
+        order.setStatus(Status.inProgress);
+        String afterChange = cache.getText(order);
+
+        //assert
+        assertSame(first, again);
+        assertNotSame(first, afterChange);
+        assertEquals(order.toString(), afterChange);
+    }
+
+    @Test
+    void dropsLeastRecentlyShownOrders() {
+        //arrange
+        OrderDetailCache cache = new OrderDetailCache(2);
+        Order first = order(1);
+        String firstText = cache.getText(first);
+        cache.getText(order(2));
+        cache.getText(first);
+        cache.getText(order(3));
+
+        //assert order 2 was dropped, order 1 was shown more recently
+        assertEquals(2, cache.size());
+        assertSame(firstText, cache.getText(first));
+    }
+}
@@ -2,11 +2,15 @@ package org.metrostate.ics.ordertrackingapp;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -32,6 +36,39 @@ class OrderDriverTest {
         assertEquals(order,driver.getOrders().getFirst());
     }
 
+    @Test
+    void addOrders() {
+        //arrange
+        List<Order> batch = new ArrayList<>();
+        batch.add(new Order(1,Type.togo,1233123,null));
+        batch.add(new Order(2,Type.pickup,1233124,null));
+        List<List<Order>> events = new ArrayList<>();
+        List<Order> singleEvents = new ArrayList<>();
+        driver.addListener(new OrderDriver.OrderChangeListener() {
+            @Override
+            public void orderAdded(Order order) {
+                singleEvents.add(order);
+            }
+
+            @Override
+            public void ordersAdded(List<Order> orders) {
+                events.add(orders);
+            }
+
+            @Override
+            public void orderChanged(Order order) {
+            }
+        });
+
+        driver.addOrders(batch);
+
+        //assert one batch event and both orders stored in order
+        assertEquals(batch,driver.getOrders());
+        assertEquals(1,events.size());
+        assertEquals(batch,events.getFirst());
+        assertTrue(singleEvents.isEmpty());
+    }
+
     @Test
     void getOrderCount1() {
         //arrange
@@ -100,6 +137,19 @@ class OrderDriverTest {
         fileDirectory.delete();
     }
 
+    @Test
+    void orderExportJSONReplacesAtomically(@TempDir File fileDirectory) throws IOException {
+        //arrange
+        Order order = new Order(1,Type.togo,1233123,List.of(new FoodItem("apple",1,3.20)));
+        OrderDriver.orderExportJSON(order, fileDirectory.getPath());
+        order.setStatus(Status.completed);
+        OrderDriver.orderExportJSON(order, fileDirectory.getPath(), true);
+
+        //assert the second save replaced the first and no temp file is left
+        assertArrayEquals(new String[] {"Saved_Order1.json"}, fileDirectory.list());
+        assertEquals(Status.completed, Parser.parseSavedJSONOrder(new File(fileDirectory, "Saved_Order1.json")).getStatus());
+    }
+
     @Test
     void saveAllOrdersToJSON() {
         ArrayList<FoodItem> foodItems = new ArrayList<>();
@@ -148,6 +198,92 @@ class OrderDriverTest {
         assertEquals(orders,driver.getOrders());
     }
 
+    @Test
+    void getOrderById() {
+        //arrange
+        Order first = new Order(1,Type.togo,1233123,null);
+        Order second = new Order(2,Type.pickup,1233124,null);
+        driver.addOrder(first);
+        driver.addOrder(second);
+        //assert
+        assertSame(second,driver.getOrder(2));
+        assertEquals(1,driver.indexOf(second));
+        assertNull(driver.getOrder(3));
+    }
+
+    @Test
+    void getOrdersByStatusAndType() {
+        //arrange
+        Order togo = new Order(1,Type.togo,1233123,null);
+        Order pickup = new Order(2,Type.pickup,1233124,null);
+        Order togo2 = new Order(3,Type.togo,1233125,null);
+        driver.addOrders(List.of(togo,pickup,togo2));
+        driver.startOrder(togo2);
+        //assert
+        assertEquals(List.of(togo,togo2),driver.getOrders(null,Type.togo));
+        assertEquals(List.of(togo),driver.getOrders(Status.waiting,Type.togo));
+        assertEquals(List.of(togo2),driver.getOrders(Status.inProgress,null));
+        assertEquals(2,driver.getOrderCount(Status.waiting));
+
+        //arrange
+        driver.clearAllOrders();
+        //assert
+        assertTrue(driver.getOrders(Status.waiting,null).isEmpty());
+        assertNull(driver.getOrder(1));
+    }
+
+    @Test
+    void concurrentAddsAndStarts() throws InterruptedException {
+        //arrange
+        AtomicInteger changes = new AtomicInteger();
+        driver.addListener(new OrderDriver.OrderChangeListener() {
+            @Override
+            public void orderAdded(Order order) {
+            }
+
+            @Override
+            public void orderChanged(Order order) {
+                changes.incrementAndGet();
+            }
+        });
+        int threadCount = 4;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int base = t * perThread;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= perThread; i++) {
+                    driver.addOrder(new Order(base + i, Type.togo, 1233123, null));
+                    // every thread races to start every order added so far
+                    for (Order order : driver.getOrders(Status.waiting, null)) {
+                        driver.startOrder(order);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //assert
+        int total = threadCount * perThread;
+        assertEquals(total, driver.getOrderCount());
+        assertEquals(total, driver.getOrderCount(Status.inProgress));
+        assertEquals(total, driver.getOrders(Status.inProgress, Type.togo).size());
+        assertEquals(0, driver.getOrderCount(Status.waiting));
+        // each order is started exactly once
+        assertEquals(total, changes.get());
+    }
+
     @Test
     void cancelOrderGUI() {
         Order order = new  Order(1,Type.togo,1233123,null);
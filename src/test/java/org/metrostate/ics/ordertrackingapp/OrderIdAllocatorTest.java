@@ -0,0 +1,68 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdAllocatorTest {
+
+    @Test
+    void idsAreUniqueAcrossThreads(@TempDir File dir) throws Exception {
+        //arrange
+        OrderIdAllocator allocator = new OrderIdAllocator(new File(dir, OrderIdAllocator.ID_FILE), 100);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    ids.add(allocator.next());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //assert
+        assertEquals(40_000, ids.size());
+        assertEquals(1, (int) ids.stream().min(Integer::compare).orElseThrow());
+        assertEquals(40_000, (int) ids.stream().max(Integer::compare).orElseThrow());
+    }
+
+    @Test
+    void neverReusesIdsAfterRestart(@TempDir File dir) throws Exception {
+        //arrange
+        File idFile = new File(dir, OrderIdAllocator.ID_FILE);
+        OrderIdAllocator first = new OrderIdAllocator(idFile, 10);
+        int lastId = 0;
+        for (int i = 0; i < 12; i++) {
+            lastId = first.next();
+        }
+
+        // no shutdown step, as if the application stopped suddenly
+        OrderIdAllocator second = new OrderIdAllocator(idFile, 10);
+
+        //assert
+        assertEquals(12, lastId);
+        assertEquals(21, second.next());
+    }
+
+    @Test
+    void advancePastSkipsIdsInUse() {
+        //arrange
+        OrderIdAllocator allocator = new OrderIdAllocator();
+        allocator.advancePast(41);
+        allocator.advancePast(7);
+
+        //assert
+        assertEquals(42, allocator.next());
+    }
+}
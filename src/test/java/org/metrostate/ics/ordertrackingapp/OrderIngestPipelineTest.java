@@ -0,0 +1,136 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIngestPipelineTest {
+
+    private static File writeJSONOrder(File dir, String name, long date) throws IOException {
+        File file = new File(dir, name);
+        try (FileWriter fw = new FileWriter(file)) {
+            fw.write("{\"order\": {\"type\": \"pickup\", \"order_date\": " + date
+                    + ", \"items\": [{\"name\": \"Fries\", \"quantity\": 1, \"price\": 3.09}]}}");
+        }
+        return file;
+    }
+
+    @Test
+    void idsFollowSubmissionOrder(@TempDir File dir) throws Exception {
+        //arrange
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            files.add(writeJSONOrder(dir, String.format("order_%03d.json", i), 1000L + i));
+        }
+        List<Order> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(files.size());
+        OrderIngestPipeline pipeline = new OrderIngestPipeline(4, 16, new AtomicInteger(1)::getAndIncrement, (orders, failed, duplicates, parsed) -> {
+            received.addAll(orders);
+            for (int i = 0; i < orders.size() + failed.size(); i++) done.countDown();
+        });
+
+        pipeline.submitAll(files);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pipeline.shutdown();
+
+        //assert orders come back in file order with consecutive IDs
+        assertEquals(files.size(), received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(1000L + i, received.get(i).getDate());
+            assertEquals(i + 1, received.get(i).getOrderID());
+        }
+    }
+
+    @Test
+    void reportsFailedFiles(@TempDir File dir) throws Exception {
+        //arrange
+        File good = writeJSONOrder(dir, "good.json", 5L);
+        File bad = new File(dir, "bad.json");
+        try (FileWriter fw = new FileWriter(bad)) {
+            fw.write("{\"order\": ");
+        }
+        List<File> failures = Collections.synchronizedList(new ArrayList<>());
+        List<File> parsedFiles = Collections.synchronizedList(new ArrayList<>());
+        List<Order> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        OrderIngestPipeline pipeline = new OrderIngestPipeline(2, 8, new AtomicInteger(1)::getAndIncrement, (orders, failed, duplicates, parsed) -> {
+            received.addAll(orders);
+            failures.addAll(failed);
+            parsedFiles.addAll(parsed);
+            for (int i = 0; i < orders.size() + failed.size(); i++) done.countDown();
+        });
+
+        pipeline.submit(bad);
+        pipeline.submit(good);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pipeline.shutdown();
+
+        //assert
+        assertEquals(List.of(bad), failures);
+        assertEquals(List.of(good), parsedFiles);
+        assertEquals(1, received.size());
+        assertEquals(5L, received.getFirst().getDate());
+        assertEquals(1, received.getFirst().getOrderID());
+    }
+
+    @Test
+    void leavesOutDuplicateOrders(@TempDir File dir) throws Exception {
+        //arrange
+        File first = writeJSONOrder(dir, "order_a.json", 7L);
+        File resent = writeJSONOrder(dir, "order_a_resent.json", 7L);
+        File other = writeJSONOrder(dir, "order_b.json", 8L);
+        List<Order> received = Collections.synchronizedList(new ArrayList<>());
+        List<OrderIngestPipeline.Duplicate> repeated = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        OrderIngestPipeline pipeline = new OrderIngestPipeline(2, 8, new AtomicInteger(1)::getAndIncrement,
+                new DuplicateOrderDetector(), (orders, failed, duplicates, parsed) -> {
+            received.addAll(orders);
+            repeated.addAll(duplicates);
+            for (int i = 0; i < orders.size() + failed.size() + duplicates.size(); i++) done.countDown();
+        });
+
+        pipeline.submitAll(List.of(first, resent, other));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pipeline.shutdown();
+
+        //assert the copy didn't use up an ID
+        assertEquals(List.of(1, 2), received.stream().map(Order::getOrderID).toList());
+        assertEquals(List.of(new OrderIngestPipeline.Duplicate(resent, 1)), repeated);
+    }
+
+    @Test
+    void shutdownGivesUpOnAStuckHandler(@TempDir File dir) throws Exception {
+        //arrange
+        CountDownLatch never = new CountDownLatch(1);
+        CountDownLatch stuck = new CountDownLatch(1);
+        OrderIngestPipeline pipeline = new OrderIngestPipeline(1, 1, new AtomicInteger(1)::getAndIncrement, (orders, failed, duplicates, parsed) -> {
+            stuck.countDown();
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        pipeline.submit(writeJSONOrder(dir, "order_1.json", 1000L));
+        pipeline.submit(writeJSONOrder(dir, "order_2.json", 1001L));
+        assertTrue(stuck.await(10, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        pipeline.shutdown(200);
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        //assert shutdown returned soon after its timeout instead of waiting for the handler
+        assertTrue(tookMillis < 5_000, "shutdown took " + tookMillis + " ms");
+    }
+}
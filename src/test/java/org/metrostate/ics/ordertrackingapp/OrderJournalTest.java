@@ -0,0 +1,132 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    private static Order order(int id, Type type) {
+        Order order = new Order(id, 1233123 + id, 12.5, type, Status.waiting,
+                List.of(new FoodItem("Fries", 2, 3.09), new FoodItem("Soda", 1, 1.99)));
+        order.setCompany("GrubStop");
+        return order;
+    }
+
+    @Test
+    void replaysCreatedOrdersAndStatusChanges(@TempDir File dir) throws IOException {
+        //arrange
+        OrderJournal journal = new OrderJournal(dir);
+        Order first = order(1, Type.togo);
+        Order second = order(2, Type.delivery);
+        journal.write(first);
+        journal.write(second);
+        first.setStatus(Status.inProgress);
+        journal.write(first);
+        first.setStatus(Status.completed);
+        journal.write(first);
+        journal.endBatch();
+
+        List<Order> recovered = new OrderJournal(dir).getRecoveredOrders();
+
+        //assert
+        assertEquals(2, recovered.size());
+        assertEquals(1, recovered.get(0).getOrderID());
+        assertEquals(Status.completed, recovered.get(0).getStatus());
+        assertEquals(Status.waiting, recovered.get(1).getStatus());
+        assertEquals(Type.delivery, recovered.get(1).getType());
+        assertEquals(12.5, recovered.get(1).getTotalPrice());
+        assertEquals(2, recovered.get(1).getFoodList().size());
+        assertEquals("Soda", recovered.get(1).getFoodList().get(1).getName());
+        assertEquals("Restored - GrubStop", recovered.get(1).getCompany());
+    }
+
+    @Test
+    void ignoresATornRecordAtTheEnd(@TempDir File dir) throws IOException {
+        //arrange
+        OrderJournal journal = new OrderJournal(dir);
+        journal.write(order(1, Type.togo));
+        journal.endBatch();
+        File file = new File(dir, OrderJournal.JOURNAL_FILE);
+        long goodLength = file.length();
+        journal.write(order(2, Type.pickup));
+        journal.endBatch();
+        // cut the second record in half, as if the application stopped mid-write
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(goodLength + 10);
+        }
+
+        OrderJournal reopened = new OrderJournal(dir);
+
+        //assert
+        assertEquals(1, reopened.getRecoveredOrders().size());
+        assertEquals(goodLength, file.length());
+
+        //arrange new records go after the last good one
+        reopened.write(order(3, Type.pickup));
+        reopened.endBatch();
+        //assert
+        assertEquals(2, new OrderJournal(dir).getRecoveredOrders().size());
+    }
+
+    @Test
+    void compactsIntoTheSnapshot(@TempDir File dir) throws IOException {
+        //arrange
+        OrderJournal journal = new OrderJournal(dir, 10);
+        Order order = order(1, Type.togo);
+        journal.write(order);
+        for (int i = 0; i < 20; i++) {
+            order.setStatus(i % 2 == 0 ? Status.inProgress : Status.waiting);
+            journal.write(order);
+        }
+        journal.write(order(2, Type.pickup));
+        journal.endBatch();
+        journal.close();
+
+        //assert the journal is back to just its header and the orders are in the snapshot
+        assertEquals(6, new File(dir, OrderJournal.JOURNAL_FILE).length());
+        assertTrue(new File(dir, OrderJournal.SNAPSHOT_FILE).exists());
+        List<Order> recovered = new OrderJournal(dir).getRecoveredOrders();
+        assertEquals(2, recovered.size());
+        assertEquals(Status.waiting, recovered.getFirst().getStatus());
+        assertEquals("Fries", recovered.get(1).getFoodList().getFirst().getName());
+    }
+
+    @Test
+    void replaysTheJournalOnTopOfTheSnapshot(@TempDir File dir) throws IOException {
+        //arrange
+        OrderJournal journal = new OrderJournal(dir);
+        Order order = order(1, Type.togo);
+        journal.write(order);
+        journal.compact();
+        order.setStatus(Status.cancelled);
+        journal.write(order);
+        journal.write(order(2, Type.delivery));
+        journal.endBatch();
+
+        List<Order> recovered = new OrderJournal(dir).getRecoveredOrders();
+
+        //assert
+        assertEquals(2, recovered.size());
+        assertEquals(Status.cancelled, recovered.getFirst().getStatus());
+        assertEquals(2, recovered.get(1).getOrderID());
+    }
+
+    @Test
+    void clearLeavesAnEmptyJournal(@TempDir File dir) throws IOException {
+        //arrange
+        OrderJournal journal = new OrderJournal(dir);
+        journal.write(order(1, Type.togo));
+        journal.endBatch();
+        journal.clear();
+
+        //assert
+        assertTrue(new OrderJournal(dir).getRecoveredOrders().isEmpty());
+    }
+}
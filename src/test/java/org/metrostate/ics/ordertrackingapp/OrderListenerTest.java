@@ -0,0 +1,201 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderListenerTest {
+
+    private static void waitFor(List<File> received, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && received.size() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void handsOffEachNewFileOnce(@TempDir File dir) throws Exception {
+        //arrange
+        List<File> received = Collections.synchronizedList(new ArrayList<>());
+        OrderListener listener = new OrderListener(dir.getPath(), received::add);
+        listener.start();
+        Thread.sleep(200);
+
+        for (int i = 0; i < 20; i++) {
+            try (FileWriter fw = new FileWriter(new File(dir, "order_" + i + ".json"))) {
+                fw.write("{\"order\": {}}");
+            }
+        }
+        waitFor(received, 20);
+        // give late duplicate events a chance to show up
+        Thread.sleep(100);
+        listener.stop();
+
+        //assert
+        assertEquals(20, received.size());
+    }
+
+    @Test
+    void waitsForAFileToStopGrowing(@TempDir File dir) throws Exception {
+        //arrange
+        List<File> received = Collections.synchronizedList(new ArrayList<>());
+        List<Long> sizes = Collections.synchronizedList(new ArrayList<>());
+        OrderListener listener = new OrderListener(dir.getPath(), file -> {
+            sizes.add(file.length());
+            received.add(file);
+        }, 50);
+        listener.start();
+        Thread.sleep(200);
+
+        File file = new File(dir, "slow.json");
+        try (FileWriter fw = new FileWriter(file)) {
+            for (int i = 0; i < 10; i++) {
+                fw.write("{\"part\": " + i + "}\n");
+                fw.flush();
+                Thread.sleep(20);
+            }
+        }
+        waitFor(received, 1);
+        listener.stop();
+
+        //assert the file was only handed off once it was complete
+        assertEquals(1, received.size());
+        assertEquals(file.length(), (long) sizes.getFirst());
+    }
+
+    @Test
+    void reportsExistingFilesInNameOrder(@TempDir File dir) throws IOException, InterruptedException {
+        //arrange
+        for (String name : new String[] {"b.xml", "a.json", "c.txt"}) {
+            try (FileWriter fw = new FileWriter(new File(dir, name))) {
+                fw.write("x");
+            }
+        }
+        List<File> received = Collections.synchronizedList(new ArrayList<>());
+        OrderListener listener = new OrderListener(dir.getPath(), received::add);
+        listener.start();
+        waitFor(received, 2);
+        listener.stop();
+
+        //assert
+        assertEquals(List.of("a.json", "b.xml"), received.stream().map(File::getName).toList());
+    }
+
+    @Test
+    void skipsFilesIngestedBeforeRestart(@TempDir File dir) throws Exception {
+        //arrange
+        File importDir = new File(dir, "import");
+        importDir.mkdir();
+        File indexFile = new File(dir, ProcessedFileIndex.INDEX_FILE);
+        for (String name : new String[] {"old.json", "new.json"}) {
+            try (FileWriter fw = new FileWriter(new File(importDir, name))) {
+                fw.write(name);
+            }
+        }
+        ProcessedFileIndex before = new ProcessedFileIndex(indexFile);
+        before.markProcessed(new File(importDir, "old.json").toPath());
+        before.close();
+
+        List<File> received = Collections.synchronizedList(new ArrayList<>());
+        ProcessedFileIndex index = new ProcessedFileIndex(indexFile);
+        OrderListener listener = new OrderListener(importDir.getPath(), received::add, index);
+        listener.start();
+        waitFor(received, 1);
+        Thread.sleep(100);
+        listener.stop();
+        index.close();
+
+        //assert
+        assertEquals(List.of("new.json"), received.stream().map(File::getName).toList());
+    }
+
+    @Test
+    void handsOffUnsavedFilesAgainAfterRestart(@TempDir File dir) throws Exception {
+        //arrange
+        File importDir = new File(dir, "import");
+        importDir.mkdir();
+        File indexFile = new File(dir, ProcessedFileIndex.INDEX_FILE);
+        try (FileWriter fw = new FileWriter(new File(importDir, "unsaved.json"))) {
+            fw.write("unsaved");
+        }
+        List<File> first = Collections.synchronizedList(new ArrayList<>());
+        ProcessedFileIndex index = new ProcessedFileIndex(indexFile);
+        OrderListener listener = new OrderListener(importDir.getPath(), first::add, index);
+        listener.start();
+        waitFor(first, 1);
+        // stops before the file's orders were saved, so it is never marked
+        listener.stop();
+        index.close();
+
+        List<File> second = Collections.synchronizedList(new ArrayList<>());
+        ProcessedFileIndex reopened = new ProcessedFileIndex(indexFile);
+        OrderListener restarted = new OrderListener(importDir.getPath(), second::add, reopened);
+        restarted.start();
+        waitFor(second, 1);
+        restarted.stop();
+        reopened.close();
+
+        //assert
+        assertEquals(List.of("unsaved.json"), second.stream().map(File::getName).toList());
+    }
+
+    @Test
+    void rescanFindsOnlyMissedFiles(@TempDir File dir) throws Exception {
+        //arrange
+        List<File> received = Collections.synchronizedList(new ArrayList<>());
+        OrderListener listener = new OrderListener(dir.getPath(), received::add);
+        listener.start();
+        Thread.sleep(200);
+        try (FileWriter fw = new FileWriter(new File(dir, "seen.json"))) {
+            fw.write("x");
+        }
+        waitFor(received, 1);
+
+        //assert nothing was missed, so a rescan finds nothing to do
+        assertEquals(0, listener.rescan());
+        listener.stop();
+        assertEquals(1, received.size());
+    }
+
+    // slow and timing dependent, so it only runs with ./gradlew stressTest
+    @Test
+    @Tag("stress")
+    void stressBurstLosesNoFiles(@TempDir File dir) throws Exception {
+        //arrange
+        int fileCount = 20_000;
+        Set<String> received = Collections.synchronizedSet(new HashSet<>());
+        List<File> duplicates = Collections.synchronizedList(new ArrayList<>());
+        OrderListener listener = new OrderListener(dir.getPath(), file -> {
+            if (!received.add(file.getName())) {
+                duplicates.add(file);
+            }
+        }, OrderListener.DEFAULT_SETTLE_MILLIS, 500);
+        listener.start();
+        Thread.sleep(200);
+
+        // far more files than the OS keeps events for, so the watch queue overflows
+        for (int i = 0; i < fileCount; i++) {
+            try (FileWriter fw = new FileWriter(new File(dir, "burst_" + i + ".json"))) {
+                fw.write("{\"order\": {}}");
+            }
+        }
+        for (int i = 0; i < 600 && received.size() < fileCount; i++) {
+            Thread.sleep(100);
+        }
+        listener.stop();
+
+        //assert
+        assertEquals(fileCount, received.size());
+        assertTrue(duplicates.isEmpty());
+    }
+}
@@ -0,0 +1,168 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPersistenceTest {
+
+    @Test
+    void coalescesChangesToTheSameOrder() {
+        //arrange
+        List<Order> written = Collections.synchronizedList(new ArrayList<>());
+        OrderPersistence persistence = new OrderPersistence(60_000, written::add);
+        Order hot = new Order(1, Type.togo, 1233123, null);
+        Order other = new Order(2, Type.pickup, 1233124, null);
+
+        for (int i = 0; i < 100; i++) {
+            persistence.save(hot);
+        }
+        persistence.save(other);
+        hot.setStatus(Status.completed);
+        //assert nothing is written before the flush interval
+        assertTrue(written.isEmpty());
+        assertEquals(2, persistence.getPendingCount());
+
+        persistence.shutdown();
+
+        //assert each order is written once, with its latest state
+        assertEquals(2, written.size());
+        assertEquals(Status.completed, written.get(written.indexOf(hot)).getStatus());
+        assertEquals(0, persistence.getPendingCount());
+    }
+
+    @Test
+    void writesOnTheIOThread() throws InterruptedException {
+        //arrange
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        OrderPersistence persistence = new OrderPersistence(5, order -> threads.add(Thread.currentThread().getName()));
+
+        persistence.save(new Order(1, Type.togo, 1233123, null));
+        for (int i = 0; i < 200 && threads.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        persistence.shutdown();
+
+        //assert
+        assertEquals(List.of("order-persistence"), threads);
+    }
+
+    @Test
+    void savesAfterShutdownAreWrittenImmediately(@TempDir File dir) {
+        //arrange
+        OrderPersistence persistence = new OrderPersistence(dir.getPath(), 60_000);
+        persistence.shutdown();
+
+        persistence.save(new Order(7, Type.delivery, 1233123, null));
+
+        //assert
+        assertTrue(new File(dir, "Saved_Order7.json").exists());
+    }
+
+    @Test
+    void retriesAnOrderTheSinkFailedToWrite() throws InterruptedException {
+        //arrange
+        List<Order> written = Collections.synchronizedList(new ArrayList<>());
+        List<Order> batches = Collections.synchronizedList(new ArrayList<>());
+        boolean[] failNext = {true};
+        OrderPersistence persistence = new OrderPersistence(5, new OrderPersistence.Sink() {
+            @Override
+            public void write(Order order) throws IOException {
+                if (failNext[0]) {
+                    failNext[0] = false;
+                    throw new IOException("disk full");
+                }
+                written.add(order);
+            }
+
+            @Override
+            public void endBatch() {
+                batches.addAll(written);
+            }
+        });
+        Order order = new Order(3, Type.pickup, 1233123, null);
+
+        persistence.save(order);
+        for (int i = 0; i < 200 && written.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        persistence.shutdown();
+
+        //assert the failed write was tried again instead of dropped
+        assertEquals(List.of(order), written);
+        assertEquals(List.of(order), batches);
+        assertEquals(0, persistence.getPendingCount());
+    }
+
+    @Test
+    void syncReportsAnOrderTheDirectoryCouldNotTake(@TempDir File dir) throws IOException {
+        //arrange
+        // a plain file where the order directory should be, so every write fails
+        File notADirectory = new File(dir, "savedOrders");
+        assertTrue(notADirectory.createNewFile());
+        OrderPersistence persistence = new OrderPersistence(notADirectory.getPath(), 60_000);
+
+        persistence.save(new Order(5, Type.pickup, 1233123, null));
+        boolean synced = persistence.sync();
+        int pendingAfterSync = persistence.getPendingCount();
+        persistence.shutdown();
+
+        //assert the order was not reported as saved and is still waiting to be written
+        assertFalse(synced);
+        assertEquals(1, pendingAfterSync);
+    }
+
+    @Test
+    void syncWritesPendingOrdersToTheDirectory(@TempDir File dir) {
+        //arrange
+        OrderPersistence persistence = new OrderPersistence(dir.getPath(), 60_000);
+
+        persistence.save(new Order(6, Type.pickup, 1233123, null));
+        boolean synced = persistence.sync();
+        persistence.shutdown();
+
+        //assert
+        assertTrue(synced);
+        assertTrue(new File(dir, "Saved_Order6.json").exists());
+    }
+
+    @Test
+    void retriesAClearTheSinkFailedToRecord() {
+        //arrange
+        List<String> calls = new ArrayList<>();
+        boolean[] failNext = {true};
+        OrderPersistence persistence = new OrderPersistence(60_000, new OrderPersistence.Sink() {
+            @Override
+            public void write(Order order) {
+                calls.add("write " + order.getOrderID());
+            }
+
+            @Override
+            public void clear() throws IOException {
+                if (failNext[0]) {
+                    failNext[0] = false;
+                    throw new IOException("disk full");
+                }
+                calls.add("clear");
+            }
+        });
+
+        persistence.clear();
+        persistence.save(new Order(4, Type.pickup, 1233123, null));
+        boolean firstSync = persistence.sync();
+        boolean secondSync = persistence.sync();
+        persistence.shutdown();
+
+        //assert the clear was kept and still written before the order saved after it
+        assertFalse(firstSync);
+        assertTrue(secondSync);
+        assertEquals(List.of("clear", "write 4"), calls);
+    }
+}
@@ -0,0 +1,84 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderUpdateCoalescerTest {
+
+    private static Order order(int id) {
+        Order order = new Order();
+        order.setOrderID(id);
+        return order;
+    }
+
+    @Test
+    void drawsEachChangedOrderOncePerFrame() {
+        //arrange
+        AtomicInteger wakes = new AtomicInteger();
+        AtomicInteger renders = new AtomicInteger();
+        List<Order> added = new ArrayList<>();
+        List<Order> changed = new ArrayList<>();
+        OrderUpdateCoalescer coalescer = new OrderUpdateCoalescer((a, c) -> {
+            renders.incrementAndGet();
+            added.addAll(a);
+            changed.addAll(c);
+        }, OrderUpdateCoalescer.DEFAULT_FRAME_BUDGET_NANOS, System::nanoTime, wakes::incrementAndGet);
+        Order first = order(1);
+
+        coalescer.ordersAdded(List.of(first, order(2)));
+        coalescer.orderChanged(first);
+        coalescer.orderChanged(first);
+        coalescer.orderChanged(order(3));
+        int wakesBeforeFrame = wakes.get();
+        boolean moreLeft = coalescer.runFrame();
+        coalescer.orderChanged(first);
+
+        //assert one wake-up and one render for the whole burst, a new one once it was drawn
+        assertEquals(1, wakesBeforeFrame);
+        assertFalse(moreLeft);
+        assertEquals(1, renders.get());
+        assertEquals(2, added.size());
+        assertEquals(List.of(1, 3), changed.stream().map(Order::getOrderID).toList());
+        assertEquals(2, wakes.get());
+    }
+
+    @Test
+    void spreadsABurstOverFramesWithinTheBudget() {
+        //arrange
+        AtomicLong now = new AtomicLong();
+        List<Order> added = new ArrayList<>();
+        List<Integer> chunksPerFrame = new ArrayList<>();
+        AtomicInteger chunks = new AtomicInteger();
+        // every chunk takes 1 ms, the budget allows 3
+        OrderUpdateCoalescer coalescer = new OrderUpdateCoalescer((a, c) -> {
+            added.addAll(a);
+            chunks.incrementAndGet();
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        }, TimeUnit.MILLISECONDS.toNanos(3), now::get, () -> { });
+        List<Order> burst = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            burst.add(order(i));
+        }
+
+        coalescer.ordersAdded(burst);
+        boolean moreLeft;
+        do {
+            chunks.set(0);
+            moreLeft = coalescer.runFrame();
+            chunksPerFrame.add(chunks.get());
+        } while (moreLeft);
+
+        //assert no frame went over budget and every order was drawn in order
+        assertTrue(chunksPerFrame.size() > 1);
+        assertTrue(chunksPerFrame.stream().allMatch(n -> n <= 3));
+        assertEquals(burst, added);
+        assertEquals(0, coalescer.getPendingCount());
+    }
+}
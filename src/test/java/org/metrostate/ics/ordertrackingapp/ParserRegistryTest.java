@@ -0,0 +1,72 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserRegistryTest {
+
+    private static final String JSON_ORDER = "{\"order\": {\"type\": \"pickup\", \"order_date\": 5,"
+            + " \"items\": [{\"name\": \"Fries\", \"quantity\": 1, \"price\": 3.09}]}}";
+
+    @Test
+    void installedRegistryHasTheBuiltInFeeds() {
+        //arrange
+        ParserRegistry registry = ParserRegistry.installed();
+
+        //assert
+        assertTrue(registry.isOrderFile("order.JSON"));
+        assertTrue(registry.isOrderFile("order.xml"));
+        assertFalse(registry.isOrderFile("order.txt"));
+        assertEquals(List.of(FoodHubJSONAdapter.COMPANY, GrubStopXMLAdapter.COMPANY),
+                registry.getAdapters().stream().map(OrderFeedAdapter::company).toList());
+    }
+
+    @Test
+    void picksTheAdapterFromContent(@TempDir File dir) throws IOException {
+        //arrange
+        ParserRegistry registry = new ParserRegistry(List.of(new FoodHubJSONAdapter(), new GrubStopXMLAdapter()));
+        // a JSON order with a byte order mark, saved under the wrong extension
+        File misnamed = new File(dir, "order.xml");
+        Files.write(misnamed.toPath(), ("\uFEFF  " + JSON_ORDER).getBytes(StandardCharsets.UTF_8));
+
+        List<Order> orders = registry.parse(misnamed);
+
+        //assert
+        assertEquals(1, orders.size());
+        assertEquals(FoodHubJSONAdapter.COMPANY, orders.getFirst().getCompany());
+        assertEquals(5L, orders.getFirst().getDate());
+    }
+
+    @Test
+    void countsWorkPerAdapter(@TempDir File dir) throws IOException {
+        //arrange
+        ParserRegistry registry = new ParserRegistry(List.of(new FoodHubJSONAdapter(), new GrubStopXMLAdapter()));
+        File good = new File(dir, "good.json");
+        Files.writeString(good.toPath(), JSON_ORDER);
+        File bad = new File(dir, "bad.json");
+        Files.writeString(bad.toPath(), "{\"order\": ");
+        File unknown = new File(dir, "unknown.json");
+        Files.writeString(unknown.toPath(), "order,5,pickup");
+
+        registry.parse(good);
+        assertThrows(IOException.class, () -> registry.parse(bad));
+        assertThrows(IOException.class, () -> registry.parse(unknown));
+        ParserRegistry.FeedMetrics json = registry.getMetrics().getFirst();
+
+        //assert
+        assertEquals(FoodHubJSONAdapter.COMPANY, json.company());
+        assertEquals(1, json.files());
+        assertEquals(1, json.orders());
+        assertEquals(1, json.failures());
+        assertEquals(good.length(), json.bytes());
+        assertEquals(0, registry.getMetrics().get(1).files());
+    }
+}
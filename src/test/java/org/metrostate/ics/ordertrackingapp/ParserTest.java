@@ -1,6 +1,7 @@
 package org.metrostate.ics.ordertrackingapp;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
@@ -14,7 +15,7 @@ class ParserTest {
     @Test
     void parseJSONOrder() throws IOException {
         //arrange
-        File file = new File("src/main/orderFiles/testOrders/order_09-16-2025_10-00.json");
+        File file = new File("src/main/orderFiles/~ordersBackup/order_09-16-2025_10-00.json");
         Order order = Parser.parseJSONOrder(file);
         //assert
         assertEquals(Type.togo, order.getType());
@@ -54,8 +55,29 @@ class ParserTest {
         }
     }
 
-    //should we use?
     @Test
-    void parseSavedJSONOrder() {
+    void parseSavedJSONOrder(@TempDir File fileDirectory) throws IOException {
+        //arrange
+        ArrayList<FoodItem> foodItems = new ArrayList<>();
+        foodItems.add(new FoodItem("Taco \"Supreme\"",3,2.50));
+        foodItems.add(new FoodItem("Soda",1,1.25));
+        Order saved = new Order(42,Type.delivery,1758027600000L,foodItems);
+        saved.setStatus(Status.inProgress);
+        saved.setCompany("FoodHub (JSON)");
+        OrderDriver.orderExportJSON(saved, fileDirectory.getPath());
+
+        Order order = Parser.parseSavedJSONOrder(new File(fileDirectory, "Saved_Order42.json"));
+
+        //assert
+        assertEquals(42,order.getOrderID());
+        assertEquals(Type.delivery,order.getType());
+        assertEquals(Status.inProgress,order.getStatus());
+        assertEquals(1758027600000L,order.getDate());
+        assertEquals(saved.getTotalPrice(),order.getTotalPrice());
+        assertEquals("Restored - FoodHub (JSON)",order.getCompany());
+        assertEquals(2,order.getFoodList().size());
+        assertEquals("Taco \"Supreme\"",order.getFoodList().getFirst().getName());
+        assertEquals(3,order.getFoodList().getFirst().getQuantity());
+        assertEquals(1.25,order.getFoodList().get(1).getPrice());
     }
 }
\ No newline at end of file
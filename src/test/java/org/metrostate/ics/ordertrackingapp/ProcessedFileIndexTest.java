@@ -0,0 +1,121 @@
+package org.metrostate.ics.ordertrackingapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessedFileIndexTest {
+
+    @Test
+    void marksAFileOnlyOnce(@TempDir File dir) throws Exception {
+        //arrange
+        Path file = Files.writeString(dir.toPath().resolve("order_1.json"), "{\"order\": {}}");
+        ProcessedFileIndex index = new ProcessedFileIndex();
+
+        //assert
+        assertFalse(index.isKnown(file));
+        assertTrue(index.markProcessed(file));
+        assertFalse(index.markProcessed(file));
+        assertTrue(index.isKnown(file));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void reusedNameWithNewContentsIsNew(@TempDir File dir) throws Exception {
+        //arrange
+        Path file = Files.writeString(dir.toPath().resolve("order_1.json"), "{\"order\": {}}");
+        ProcessedFileIndex index = new ProcessedFileIndex();
+        index.markProcessed(file);
+        Files.writeString(file, "{\"order\": {\"items\": []}}");
+
+        //assert
+        assertFalse(index.isKnown(file));
+        assertTrue(index.markProcessed(file));
+    }
+
+    @Test
+    void recordsTheContentsThatWereClaimed(@TempDir File dir) throws Exception {
+        //arrange
+        Path file = Files.writeString(dir.toPath().resolve("order_1.json"), "{\"order\": {}}");
+        ProcessedFileIndex index = new ProcessedFileIndex();
+        assertTrue(index.claim(file));
+        // rewritten after it was handed off, before its orders were saved
+        Files.writeString(file, "{\"order\": {\"items\": []}}");
+
+        boolean marked = index.markProcessed(file);
+
+        //assert the claimed contents were recorded, the new contents still have to be ingested
+        assertTrue(marked);
+        assertEquals(1, index.size());
+        assertTrue(index.claim(file));
+    }
+
+    @Test
+    void remembersFilesAcrossRestarts(@TempDir File dir) throws Exception {
+        //arrange
+        Path file = Files.writeString(dir.toPath().resolve("order_1.json"), "{\"order\": {}}");
+        File indexFile = new File(dir, ProcessedFileIndex.INDEX_FILE);
+        ProcessedFileIndex index = new ProcessedFileIndex(indexFile);
+        index.markProcessed(file);
+        index.close();
+
+        ProcessedFileIndex reopened = new ProcessedFileIndex(indexFile);
+
+        //assert
+        assertEquals(1, reopened.size());
+        assertFalse(reopened.markProcessed(file));
+        reopened.close();
+    }
+
+    @Test
+    void evictsOldAndExcessEntries(@TempDir File dir) throws Exception {
+        //arrange
+        AtomicLong now = new AtomicLong(1_000_000);
+        File indexFile = new File(dir, ProcessedFileIndex.INDEX_FILE);
+        ProcessedFileIndex index = ProcessedFileIndex.open(indexFile, 10_000, 3, now::get);
+        Path[] files = new Path[5];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = Files.writeString(dir.toPath().resolve("order_" + i + ".json"), "order " + i);
+            now.addAndGet(1000);
+            index.markProcessed(files[i]);
+        }
+        // the fourth file evicted down to 2, the fifth brought it back to 3
+        int afterLimit = index.size();
+
+        now.addAndGet(9_500);
+        index.evictExpired();
+        int afterAge = index.size();
+        index.close();
+
+        //assert
+        assertEquals(3, afterLimit);
+        // only the newest file is still within the maximum age
+        assertEquals(1, afterAge);
+        assertEquals(1, ProcessedFileIndex.open(indexFile, 10_000, 3, now::get).size());
+    }
+
+    @Test
+    void evictsBelowTheLimitSoEvictionIsRare(@TempDir File dir) throws Exception {
+        //arrange
+        AtomicLong now = new AtomicLong(1_000_000);
+        ProcessedFileIndex index = new ProcessedFileIndex(null, 1_000_000, 20, now::get);
+        for (int i = 0; i < 21; i++) {
+            Path file = Files.writeString(dir.toPath().resolve("order_" + i + ".json"), "order " + i);
+            now.incrementAndGet();
+            index.markProcessed(file);
+        }
+        int afterEviction = index.size();
+        Path next = Files.writeString(dir.toPath().resolve("order_next.json"), "order next");
+        index.markProcessed(next);
+
+        //assert going over 20 evicted down to 18, and the next file didn't evict again
+        assertEquals(18, afterEviction);
+        assertEquals(19, index.size());
+    }
+}